@@ -0,0 +1,29 @@
+#!/bin/bash
+
+# Builds the project and runs the benchmark suite in bench/Benchmarks.java.
+# Arguments are passed through, e.g. ./bench_run.sh -t 5 question engine
+# The load generator runs from the same build:
+#   java -cp build bench.LoadGenerator -b 5000 --think exp:2 --accuracy uniform:0.5:1
+
+BUILD_DIR="build/"
+SRC_DIR="src"
+
+PACKAGE_DIRS=(
+    "$SRC_DIR/engine/*.java"
+    "$SRC_DIR/main/*.java"
+    "$SRC_DIR/entities/*.java"
+    "$SRC_DIR/server/*.java"
+    "$SRC_DIR/metrics/*.java"
+    "$SRC_DIR/bench/*.java"
+)
+
+mkdir -p "$BUILD_DIR"
+
+echo "Building the project...."
+if ! javac ${PACKAGE_DIRS[@]} -d "$BUILD_DIR"; then
+    echo "Error: Failed to build project"
+    exit 1
+fi
+
+echo "Running benchmarks...."
+java -Xms512m -Xmx512m -cp "$BUILD_DIR" bench.Benchmarks "$@" | tee bench_output.txt
@@ -12,6 +12,8 @@ PACKAGE_DIRS=(
     "$SRC_DIR/engine/*.java"
     "$SRC_DIR/main/*.java"
     "$SRC_DIR/entities/*.java"
+    "$SRC_DIR/server/*.java"
+    "$SRC_DIR/metrics/*.java"
     "$SRC_DIR/main/Algotraz.java"
 )
 
@@ -31,9 +33,18 @@ else
     echo "Compiled Files successfully"
 fi
 
+echo "Packing the question bundle...."
+BUNDLE="${BUILD_DIR}story.bundle"
+JAVA_OPTS=()
+if java -cp "$BUILD_DIR" entities.QuestionBundle "$SRC_DIR/data/story" "$BUNDLE"; then
+    JAVA_OPTS+=("-Dalgotraz.bundle=$BUNDLE")
+else
+    echo "Warning: running from the story text files instead"
+fi
+
 echo "Running the project...."
 MAIN_CLASS="main.Algotraz"
-if ! java -cp "$BUILD_DIR" "$MAIN_CLASS"; then
+if ! java "${JAVA_OPTS[@]}" -cp "$BUILD_DIR" "$MAIN_CLASS"; then
     echo "Error: Failed to run the project"
     exit 1
 fi
\ No newline at end of file
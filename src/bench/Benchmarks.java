@@ -0,0 +1,210 @@
+package bench;
+
+import engine.ASCII;
+import engine.Engine;
+import engine.NullOutput;
+import entities.ContentRepository;
+import entities.Player;
+import entities.Question;
+import entities.Room;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The {@code Benchmarks} class is a small benchmark harness for the hot
+ * paths of the game: room loading, ASCII asset reading, answer checking for
+ * each question type, and full scripted playthroughs.
+ *
+ * <p>
+ * Each benchmark is warmed up, then run for a fixed time while every
+ * operation is timed individually. The report shows throughput, mean and
+ * p50/p99 latency, and bytes allocated per operation (from the JVM's
+ * per-thread allocation counter). Latencies include the ~20-30 ns cost of
+ * reading {@link System#nanoTime()}.
+ *
+ * <p>
+ * Usage: {@code ./bench_run.sh [-w warmupSeconds] [-t seconds] [filter...]}.
+ * Only benchmarks whose name contains one of the filters are run.
+ *
+ * @version 1.0
+ */
+public class Benchmarks {
+
+	private static final String STORY_DIR = "src/data/story/";
+
+	private static final String WELCOME_ART = "src/data/ascii/welcome.txt";
+
+	// Most latency samples kept per benchmark
+	private static final int MAX_SAMPLES = 1 << 20;
+
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	// Written by every benchmark so the JIT cannot drop the measured work
+	private static volatile Object sink;
+
+	// Numbers the graded code submissions so none repeats
+	private static long submissions;
+
+	/**
+	 * One benchmarked operation.
+	 */
+	@FunctionalInterface
+	interface Operation {
+		Object run() throws Exception;
+	}
+
+	private record Benchmark(String name, Operation operation) {
+	}
+
+	/**
+	 * Builds the list of benchmarks.
+	 *
+	 * @return every benchmark, in report order
+	 */
+	static List<Benchmark> benchmarks() {
+		ContentRepository content = ContentRepository.getInstance();
+		Room room1 = content.getRoom(STORY_DIR + "room1", 1, 250);
+		Room room2 = content.getRoom(STORY_DIR + "room2", 2, 200);
+		Room room3 = content.getRoom(STORY_DIR + "room3", 3, 100);
+		Question trueFalse = room1.getQuestions().get(0);
+		Question multipleChoice = room2.getQuestions().get(0);
+		Question code = room3.getQuestions().get(1);
+
+		List<Benchmark> list = new ArrayList<>();
+		list.add(new Benchmark("room.load", () -> new Room(STORY_DIR + "room2", 2, 200)));
+		list.add(new Benchmark("room.cached", () -> content.getRoom(STORY_DIR + "room2", 2, 200)));
+		list.add(new Benchmark("ascii.readFile.cold", () -> {
+			ASCII.invalidate(WELCOME_ART);
+			return new ASCII(WELCOME_ART).toString();
+		}));
+		list.add(new Benchmark("ascii.readFile.cached", () -> new ASCII(WELCOME_ART).toString()));
+		list.add(new Benchmark("question.trueFalse.check", () -> trueFalse.checkPlayerAnswer("true")));
+		list.add(new Benchmark("question.multipleChoice.check", () -> multipleChoice.checkPlayerAnswer("b")));
+		list.add(new Benchmark("question.code.check.exact",
+				() -> code.checkPlayerAnswer("Integer.bitCount(n)")));
+		// The grader caches verdicts, so a repeated submission measures a lookup
+		list.add(new Benchmark("question.code.check.cached",
+				() -> code.checkPlayerAnswer("Long.bitCount(n)")));
+		// A different submission each run, so every run compiles and grades
+		list.add(new Benchmark("question.code.check.graded",
+				() -> code.checkPlayerAnswer("Long.bitCount(n) + 0 * " + submissions++)));
+		list.add(new Benchmark("engine.updateGameState", Benchmarks::updateGameStatePlaythrough));
+		list.add(new Benchmark("engine.playthrough", Benchmarks::scriptedPlaythrough));
+		return list;
+	}
+
+	/**
+	 * Plays one game by feeding correct answers to every question.
+	 *
+	 * @return the final score
+	 */
+	private static Object scriptedPlaythrough() {
+		Engine engine = new Engine(new Player("bench", "bench"), NullOutput.INSTANCE);
+		engine.enterRoom();
+		while (!engine.isGameComplete()) {
+			engine.promptQuestion();
+			engine.submitAnswer(correctAnswer(engine));
+		}
+		return engine.totalPlayerScore();
+	}
+
+	/**
+	 * Plays one game by calling {@link Engine#updateGameState(boolean)}
+	 * directly, skipping prompts and answer checking.
+	 *
+	 * @return the final score
+	 */
+	private static Object updateGameStatePlaythrough() {
+		Engine engine = new Engine(new Player("bench", "bench"), NullOutput.INSTANCE);
+		while (!engine.isGameComplete()) {
+			engine.updateGameState(true);
+		}
+		return engine.totalPlayerScore();
+	}
+
+	private static String correctAnswer(Engine engine) {
+		return engine.getCurrentQuestion(engine.getCurrentQuestionNumber()).getAnswer();
+	}
+
+	/**
+	 * Runs one benchmark and prints its result line.
+	 */
+	private static void run(Benchmark benchmark, long warmupNanos, long measureNanos) throws Exception {
+		// Warm up
+		long end = System.nanoTime() + warmupNanos;
+		while (System.nanoTime() < end) {
+			sink = benchmark.operation.run();
+		}
+
+		// Measure
+		long[] samples = new long[1024];
+		int count = 0;
+		long ops = 0;
+		long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+		long start = System.nanoTime();
+		end = start + measureNanos;
+		long now = start;
+		while (now < end) {
+			long t0 = System.nanoTime();
+			sink = benchmark.operation.run();
+			now = System.nanoTime();
+			if (count == samples.length && count < MAX_SAMPLES) {
+				samples = Arrays.copyOf(samples, count * 2);
+			}
+			if (count < samples.length) {
+				samples[count++] = now - t0;
+			}
+			ops++;
+		}
+		long elapsed = now - start;
+		long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+
+		Arrays.sort(samples, 0, count);
+		System.out.printf(Locale.ROOT, "%-32s %14.1f %12.1f %10d %10d %12.1f%n",
+				benchmark.name,
+				ops * 1e9 / elapsed,
+				(double) elapsed / ops,
+				samples[(int) (count * 0.50)],
+				samples[Math.min(count - 1, (int) (count * 0.99))],
+				(double) bytes / ops);
+	}
+
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args {@code [-w warmupSeconds] [-t seconds] [filter...]}
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		double warmup = 1;
+		double measure = 3;
+		List<String> filters = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "-w" -> warmup = Double.parseDouble(args[++i]);
+				case "-t" -> measure = Double.parseDouble(args[++i]);
+				default -> filters.add(args[i]);
+			}
+		}
+
+		// Fail early if the content is missing
+		if (!Files.isDirectory(Paths.get(STORY_DIR))) {
+			System.err.println("Run from the project root: " + STORY_DIR + " not found");
+			System.exit(1);
+		}
+
+		System.out.printf(Locale.ROOT, "%-32s %14s %12s %10s %10s %12s%n",
+				"benchmark", "ops/s", "mean ns", "p50 ns", "p99 ns", "bytes/op");
+		for (Benchmark benchmark : benchmarks()) {
+			if (!filters.isEmpty() && filters.stream().noneMatch(benchmark.name::contains)) continue;
+			run(benchmark, (long) (warmup * 1e9), (long) (measure * 1e9));
+		}
+	}
+}
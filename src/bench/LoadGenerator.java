@@ -0,0 +1,343 @@
+package bench;
+
+import engine.Engine;
+import engine.GameContent;
+import engine.NullOutput;
+import engine.TimingWheel;
+import entities.Player;
+import entities.Question;
+import metrics.Histogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code LoadGenerator} class simulates many players at once to size
+ * servers. Each bot plays full games against the real rooms and the real
+ * {@link Engine}: answers are graded, rooms are retried when the threshold
+ * is missed, and finished games go through the end-of-game path before the
+ * bot starts a new one.
+ *
+ * <p>
+ * Every bot has an accuracy, drawn once from a distribution, and waits a
+ * think time, drawn for every answer, before answering. Bots do not own
+ * threads: think times are scheduled on a timing wheel that hands each due
+ * answer to a fixed pool of workers, so ten thousand bots need only as many
+ * threads as there are cores.
+ *
+ * <p>
+ * After a warmup, the report shows answers and games per second, the
+ * latency of each turn (grading the answer and prompting the next
+ * question), the allocation rate of the workers, and GC activity.
+ *
+ * <p>
+ * Distributions are written as {@code x} (fixed), {@code uniform:min:max},
+ * {@code normal:mean:sd} or {@code exp:mean}; think times are in seconds.
+ *
+ * <p>
+ * Usage: {@code java -cp build bench.LoadGenerator [-b bots] [-n threads]
+ * [-w warmupSeconds] [-t seconds] [--accuracy dist] [--think dist]}.
+ *
+ * @version 1.0
+ */
+public class LoadGenerator {
+
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	// Numbers the wrong code answers so none repeats
+	private static final AtomicLong WRONG_CODE = new AtomicLong();
+
+	/**
+	 * A distribution of non-negative values.
+	 *
+	 * @param kind the distribution's name
+	 * @param a    the first parameter (value, min or mean)
+	 * @param b    the second parameter (max or standard deviation)
+	 */
+	record Distribution(String kind, double a, double b) {
+
+		static Distribution parse(String spec) {
+			String[] parts = spec.split(":");
+			try {
+				return switch (parts[0]) {
+					case "uniform" -> new Distribution("uniform", Double.parseDouble(parts[1]),
+							Double.parseDouble(parts[2]));
+					case "normal" -> new Distribution("normal", Double.parseDouble(parts[1]),
+							Double.parseDouble(parts[2]));
+					case "exp" -> new Distribution("exp", Double.parseDouble(parts[1]), 0);
+					default -> new Distribution("fixed", Double.parseDouble(parts[0]), 0);
+				};
+			} catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+				throw new IllegalArgumentException("Bad distribution: " + spec);
+			}
+		}
+
+		double sample(Random random) {
+			double value = switch (kind) {
+				case "uniform" -> a + (b - a) * random.nextDouble();
+				case "normal" -> a + b * random.nextGaussian();
+				case "exp" -> -a * Math.log(1 - random.nextDouble());
+				default -> a;
+			};
+			return Math.max(0, value);
+		}
+
+		@Override
+		public String toString() {
+			return switch (kind) {
+				case "uniform", "normal" -> kind + ":" + a + ":" + b;
+				case "exp" -> kind + ":" + a;
+				default -> String.valueOf(a);
+			};
+		}
+	}
+
+	private final GameContent content;
+
+	private final Distribution think;
+
+	private final ExecutorService workers;
+
+	private final Queue<Thread> workerThreads = new ConcurrentLinkedQueue<>();
+
+	private final TimingWheel wheel;
+
+	private volatile boolean running = true;
+
+	// Swapped for a fresh one when measurement starts
+	private volatile Histogram latency = new Histogram();
+
+	private final LongAdder answers = new LongAdder();
+
+	private final LongAdder correct = new LongAdder();
+
+	private final LongAdder games = new LongAdder();
+
+	private final LongAdder wins = new LongAdder();
+
+	private final LongAdder restarts = new LongAdder();
+
+	private LoadGenerator(GameContent content, Distribution think, int threads) {
+		this.content = content;
+		this.think = think;
+		this.workers = Executors.newFixedThreadPool(threads, task -> {
+			Thread thread = new Thread(task, "load-worker");
+			thread.setDaemon(true);
+			workerThreads.add(thread);
+			return thread;
+		});
+		// Millisecond ticks so short think times are not rounded up much
+		this.wheel = new TimingWheel(1, TimeUnit.MILLISECONDS, 4096, this::execute);
+	}
+
+	private void execute(Runnable task) {
+		try {
+			workers.execute(task);
+		} catch (RejectedExecutionException e) {
+			// Shutting down; the bot simply stops
+		}
+	}
+
+	/**
+	 * One simulated player. Only one of its steps is queued or running at a
+	 * time, so it needs no locking of its own.
+	 */
+	private final class Bot {
+		private final Player player;
+		private final double accuracy;
+		private Engine engine;
+
+		Bot(int number, double accuracy) {
+			this.player = new Player("bot-" + number, "Bot " + number);
+			this.accuracy = Math.min(1, accuracy);
+		}
+
+		void start() {
+			newGame();
+			engine.promptQuestion();
+			scheduleAnswer();
+		}
+
+		private void newGame() {
+			engine = new Engine(player, NullOutput.INSTANCE, content);
+			engine.enterRoom();
+		}
+
+		void answer() {
+			if (!running) return;
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			int room = engine.getCurrentRoomNumber();
+			boolean lastQuestion = engine.getCurrentQuestionNumber() == engine.getQuestionsInRoom();
+			Question question = engine.getCurrentQuestion(engine.getCurrentQuestionNumber());
+			boolean right = random.nextDouble() < accuracy;
+			String text = right ? question.getAnswer() : wrongAnswer(question.getAnswer());
+
+			long start = System.nanoTime();
+			engine.submitAnswer(text);
+			if (engine.isGameComplete()) {
+				games.increment();
+				if (engine.totalPlayerScore() > engine.getPointsToWin()) {
+					wins.increment();
+				}
+				newGame();
+			} else if (lastQuestion && engine.getCurrentRoomNumber() == room) {
+				restarts.increment();
+			}
+			engine.promptQuestion();
+			latency.record(System.nanoTime() - start);
+
+			answers.increment();
+			if (right) {
+				correct.increment();
+			}
+			scheduleAnswer();
+		}
+
+		private void scheduleAnswer() {
+			long nanos = (long) (think.sample(ThreadLocalRandom.current()) * 1e9);
+			if (nanos <= 0) {
+				execute(this::answer);
+			} else {
+				wheel.schedule(this::answer, nanos, TimeUnit.NANOSECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Makes a plausible wrong answer from the right one: the other boolean,
+	 * another letter, or an expression that compiles but gives the wrong
+	 * result. Each wrong expression is new, so it misses the grader's
+	 * verdict cache and is compiled and run like a real player's attempt.
+	 */
+	static String wrongAnswer(String answer) {
+		if (answer.equals("True")) return "False";
+		if (answer.equals("False")) return "True";
+		if (answer.length() == 1) return answer.equals("A") ? "B" : "A";
+		return "String.valueOf(n) + " + WRONG_CODE.incrementAndGet() + "L";
+	}
+
+	private long workerAllocatedBytes() {
+		long total = 0;
+		for (Thread thread : workerThreads) {
+			long bytes = THREADS.getThreadAllocatedBytes(thread.getId());
+			if (bytes > 0) total += bytes;
+		}
+		return total;
+	}
+
+	private static long[] gcTotals() {
+		long count = 0;
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+			millis += Math.max(0, gc.getCollectionTime());
+		}
+		return new long[] { count, millis };
+	}
+
+	private void resetCounters() {
+		latency = new Histogram();
+		answers.reset();
+		correct.reset();
+		games.reset();
+		wins.reset();
+		restarts.reset();
+	}
+
+	/**
+	 * Runs the simulation and prints the report.
+	 */
+	private void run(int botCount, Distribution accuracy, double warmupSeconds, double measureSeconds)
+			throws InterruptedException {
+		Random random = new Random();
+		List<Bot> bots = new ArrayList<>(botCount);
+		for (int i = 0; i < botCount; i++) {
+			bots.add(new Bot(i + 1, accuracy.sample(random)));
+		}
+		for (Bot bot : bots) {
+			execute(bot::start);
+		}
+
+		TimeUnit.NANOSECONDS.sleep((long) (warmupSeconds * 1e9));
+		resetCounters();
+		long bytesBefore = workerAllocatedBytes();
+		long[] gcBefore = gcTotals();
+		long start = System.nanoTime();
+
+		TimeUnit.NANOSECONDS.sleep((long) (measureSeconds * 1e9));
+		Histogram measured = latency;
+		long answerCount = answers.sum();
+		long elapsed = System.nanoTime() - start;
+		long bytes = workerAllocatedBytes() - bytesBefore;
+		long[] gcAfter = gcTotals();
+		running = false;
+		workers.shutdownNow();
+
+		double seconds = elapsed / 1e9;
+		System.out.printf(Locale.ROOT, "bots %d, workers %d, accuracy %s, think %s s, measured %.1f s%n",
+				botCount, workerThreads.size(), accuracy, think, seconds);
+		System.out.printf(Locale.ROOT, "throughput   %12.1f answers/s %10.1f games/s%n",
+				answerCount / seconds, games.sum() / seconds);
+		System.out.printf(Locale.ROOT, "outcomes     %11.1f%% correct %9.1f%% games won %8.2f restarts/game%n",
+				100.0 * correct.sum() / Math.max(1, answerCount), 100.0 * wins.sum() / Math.max(1, games.sum()),
+				(double) restarts.sum() / Math.max(1, games.sum()));
+		System.out.printf(Locale.ROOT, "latency us   p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+				measured.quantile(0.50) / 1e3, measured.quantile(0.90) / 1e3, measured.quantile(0.99) / 1e3,
+				measured.quantile(0.999) / 1e3, measured.quantile(1.0) / 1e3);
+		System.out.printf(Locale.ROOT, "allocation   %12.1f MB/s %12.1f bytes/answer%n",
+				bytes / seconds / (1 << 20), (double) bytes / Math.max(1, answerCount));
+		System.out.printf(Locale.ROOT, "gc           %12d collections %8d ms%n",
+				gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+	}
+
+	/**
+	 * Runs the load generator.
+	 *
+	 * @param args {@code [-b bots] [-n threads] [-w warmupSeconds]
+	 *             [-t seconds] [--accuracy dist] [--think dist]}
+	 * @throws InterruptedException if interrupted while running
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int bots = 1000;
+		int threads = Runtime.getRuntime().availableProcessors();
+		double warmup = 5;
+		double measure = 10;
+		Distribution accuracy = Distribution.parse("0.8");
+		Distribution think = Distribution.parse("0");
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+					case "-b" -> bots = Integer.parseInt(args[++i]);
+					case "-n" -> threads = Integer.parseInt(args[++i]);
+					case "-w" -> warmup = Double.parseDouble(args[++i]);
+					case "-t" -> measure = Double.parseDouble(args[++i]);
+					case "--accuracy" -> accuracy = Distribution.parse(args[++i]);
+					case "--think" -> think = Distribution.parse(args[++i]);
+					default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+			System.err.println(e.getMessage() == null ? "Missing option value" : e.getMessage());
+			System.err.println("Usage: java bench.LoadGenerator [-b bots] [-n threads] [-w warmupSeconds]"
+					+ " [-t seconds] [--accuracy dist] [--think dist]");
+			System.exit(2);
+		}
+
+		new LoadGenerator(GameContent.standard(), think, Math.max(1, threads))
+				.run(Math.max(1, bots), accuracy, warmup, measure);
+	}
+}
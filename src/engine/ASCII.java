@@ -1,8 +1,18 @@
 package engine;
 
-import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class: ASCII
@@ -14,9 +24,17 @@ import java.util.Scanner;
  * Purpose: The ASCII class is designed to read the contents of a file and store
  * it as a string representation. This functionality can be utilized for effective
  * ASCII-based printing or processing.
+ *
+ * File contents are read in a single pass and cached by path, so displaying
+ * the same art again costs no disk access.
  */
 public class ASCII {
 
+	// Files at least this large are memory-mapped instead of bulk-read
+	private static final long MAP_THRESHOLD = 64 * 1024;
+
+	private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
 	private String asciiString; // Added this attribute for effictive ascii printing
 
 	/**
@@ -36,21 +54,133 @@ public class ASCII {
 	}
 
 	/**
-	 * Reads the contents of a file specified by the given file path and appends
-	 * its content to the `asciiString` field, line by line.
+	 * Reads the contents of a file specified by the given file path into the
+	 * `asciiString` field. Line endings are normalized to "\n" and every line,
+	 * including the last, ends with one. The result is cached by path.
 	 *
 	 * @param param1 The file path of the file to be read.
 	 * @throws FileNotFoundException If the specified file does not exist or cannot be opened.
 	 */
 	public void readFile(String param1) throws FileNotFoundException {
-		Scanner file = new Scanner(new File(param1));
+		this.asciiString = read(param1);
+	}
 
-		this.asciiString = "";
+	/**
+	 * Gets the contents of an ASCII art or story file from the shared cache,
+	 * reading it on first use. Callers that only need the text use this
+	 * instead of keeping an {@code ASCII} object.
+	 *
+	 * @param path the path to the file
+	 * @return the file's normalized contents
+	 * @throws FileNotFoundException if the file does not exist
+	 */
+	public static String read(String path) throws FileNotFoundException {
+		String cached = CACHE.get(path);
+		if (cached == null) {
+			cached = load(path);
+			String raced = CACHE.putIfAbsent(path, cached);
+			if (raced != null) {
+				cached = raced;
+			}
+		}
+		return cached;
+	}
+
+	/**
+	 * Drops the cached contents of the given file so the next read goes to disk.
+	 *
+	 * @param path The file path to forget.
+	 */
+	public static void invalidate(String path) {
+		CACHE.remove(path);
+	}
+
+	/**
+	 * Re-reads a cached file and swaps the new contents in, so readers keep
+	 * getting the old text from memory until the new text is ready. Files
+	 * that are not cached are left for the next read, and a file that no
+	 * longer exists is dropped.
+	 *
+	 * @param path the file path to re-read
+	 * @return true if the file was cached
+	 */
+	public static boolean reload(String path) {
+		if (!CACHE.containsKey(path)) {
+			return false;
+		}
+		try {
+			CACHE.put(path, load(path));
+		} catch (FileNotFoundException e) {
+			CACHE.remove(path);
+		}
+		return true;
+	}
+
+	/**
+	 * Drops every cached file.
+	 */
+	public static void clearCache() {
+		CACHE.clear();
+	}
+
+	/**
+	 * Reads and normalizes a file. Large files are memory-mapped, smaller ones
+	 * are read with a single bulk read.
+	 *
+	 * @param path The file path of the file to be read.
+	 * @return The normalized file contents.
+	 * @throws FileNotFoundException If the file does not exist or cannot be read.
+	 */
+	private static String load(String path) throws FileNotFoundException {
+		Path file = Paths.get(path);
+		try {
+			String raw;
+			if (Files.size(file) >= MAP_THRESHOLD) {
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+					MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+					raw = StandardCharsets.UTF_8.decode(mapped).toString();
+				}
+			} else {
+				raw = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(Files.readAllBytes(file))).toString();
+			}
+			return normalize(raw);
+		} catch (NoSuchFileException e) {
+			throw new FileNotFoundException(path);
+		} catch (IOException e) {
+			FileNotFoundException notFound = new FileNotFoundException(path + " (" + e.getMessage() + ")");
+			notFound.initCause(e);
+			throw notFound;
+		}
+	}
 
-		while (file.hasNextLine()) {
-			this.asciiString += file.nextLine() + "\n";
+	/**
+	 * Converts "\r\n" and "\r" line endings to "\n" and makes sure non-empty
+	 * text ends with a line break, matching line-by-line reading.
+	 *
+	 * @param raw The text as read from disk.
+	 * @return The normalized text.
+	 */
+	private static String normalize(String raw) {
+		if (raw.isEmpty()) {
+			return raw;
+		}
+		StringBuilder builder = new StringBuilder(raw.length() + 1);
+		int length = raw.length();
+		for (int i = 0; i < length; i++) {
+			char c = raw.charAt(i);
+			if (c == '\r') {
+				builder.append('\n');
+				if (i + 1 < length && raw.charAt(i + 1) == '\n') {
+					i++;
+				}
+			} else {
+				builder.append(c);
+			}
+		}
+		if (builder.charAt(builder.length() - 1) != '\n') {
+			builder.append('\n');
 		}
-		file.close();
+		return builder.toString();
 	}
 
 	/**
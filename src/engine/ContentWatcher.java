@@ -0,0 +1,256 @@
+package engine;
+
+import entities.ContentRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code ContentWatcher} class reloads story and art files while games
+ * are running. It watches the story and ASCII directories with a
+ * {@link WatchService} and, when files change, re-reads only what changed:
+ * the edited question or description of a room, or the edited art or story
+ * file. It then publishes a new {@link GameContent} version in one write.
+ *
+ * <p>
+ * Nothing already handed out is modified. Games in progress keep the
+ * version they started with; games started afterwards get the new one.
+ * Reloading happens on the watcher's own thread, so new games never read
+ * the disk themselves.
+ *
+ * <p>
+ * Changes arriving close together, such as an editor saving several files,
+ * are applied as one reload. The global watcher is enabled by setting the
+ * {@code algotraz.watch} system property to {@code true}.
+ *
+ * @version 1.0
+ */
+public final class ContentWatcher implements AutoCloseable {
+
+	// Events this close together are applied as one reload
+	private static final long SETTLE_MILLIS = 200;
+
+	private static final String DESCRIPTION = "problem_description.txt";
+
+	private final WatchService service;
+
+	private final Path storyRoot;
+
+	private final Path asciiRoot;
+
+	private final String storyDir;
+
+	private final String asciiDir;
+
+	// Only used by the watcher thread once it has started
+	private final Map<WatchKey, Path> directories = new HashMap<>();
+
+	/**
+	 * Starts watching a story directory and an art directory.
+	 *
+	 * @param storyDir the story directory, ending with a slash, as used in
+	 *                 room paths
+	 * @param asciiDir the art directory, ending with a slash, as used in art
+	 *                 paths
+	 * @throws IOException if the directories cannot be watched
+	 */
+	public ContentWatcher(String storyDir, String asciiDir) throws IOException {
+		this.storyDir = storyDir;
+		this.asciiDir = asciiDir;
+		this.storyRoot = Paths.get(storyDir);
+		this.asciiRoot = Paths.get(asciiDir);
+		this.service = storyRoot.getFileSystem().newWatchService();
+		registerTree(storyRoot, 0);
+		register(asciiRoot);
+
+		Thread thread = new Thread(this::run, "content-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Gets the watcher enabled by the {@code algotraz.watch} system property.
+	 * It starts watching the standard story and art directories when first
+	 * asked for.
+	 *
+	 * @return the global watcher, or null if watching is off
+	 */
+	public static ContentWatcher global() {
+		return Global.WATCHER;
+	}
+
+	/**
+	 * Lazily starts the global watcher on first use.
+	 */
+	private static final class Global {
+		static final ContentWatcher WATCHER = start();
+
+		private static ContentWatcher start() {
+			if (!Boolean.getBoolean("algotraz.watch")) {
+				return null;
+			}
+			try {
+				return new ContentWatcher(GameContent.STORY_DIR, GameContent.ASCII_DIR);
+			} catch (IOException e) {
+				System.err.println("Couldn't watch content for changes: " + e.getMessage());
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Stops watching.
+	 */
+	@Override
+	public void close() {
+		try {
+			service.close();
+		} catch (IOException e) {
+			System.err.println("Couldn't close content watcher: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Watches a directory and, within the story tree, its room and question
+	 * subdirectories.
+	 *
+	 * @param dir   the directory
+	 * @param depth 0 for the story directory, 1 for a room, 2 for a question
+	 */
+	private void registerTree(Path dir, int depth) throws IOException {
+		register(dir);
+		if (depth == 2) return;
+		File[] children = dir.toFile().listFiles(File::isDirectory);
+		if (children == null) return;
+		for (File child : children) {
+			registerTree(child.toPath(), depth + 1);
+		}
+	}
+
+	private void register(Path dir) throws IOException {
+		WatchKey key = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+		directories.put(key, dir);
+	}
+
+	/**
+	 * Changes collected from one burst of events.
+	 */
+	private static final class Changes {
+		// Room path -> changed entries in the room directory
+		final Map<String, Set<String>> rooms = new TreeMap<>();
+		final Set<String> files = new TreeSet<>();
+		boolean overflow;
+	}
+
+	private void run() {
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				Changes changes = new Changes();
+				do {
+					collect(key, changes);
+					key.reset();
+				} while ((key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+				apply(changes);
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// Stopped
+		}
+	}
+
+	private void collect(WatchKey key, Changes changes) {
+		Path dir = directories.get(key);
+		if (dir == null) return;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				changes.overflow = true;
+				continue;
+			}
+			String name = event.context().toString();
+			Path child = dir.resolve(name);
+			boolean created = event.kind() == StandardWatchEventKinds.ENTRY_CREATE;
+			boolean deleted = event.kind() == StandardWatchEventKinds.ENTRY_DELETE;
+			boolean directory = Files.isDirectory(child);
+
+			if (dir.equals(asciiRoot)) {
+				changes.files.add(asciiDir + name);
+			} else if (dir.equals(storyRoot)) {
+				if (directory || deleted) {
+					// A room directory was added or replaced
+					changes.overflow = true;
+					if (created) watch(child, 1);
+				} else {
+					changes.files.add(storyDir + name);
+				}
+			} else if (storyRoot.equals(dir.getParent())) {
+				// An entry of a room directory
+				if (created && directory) watch(child, 2);
+				if (name.equals(DESCRIPTION) || directory || deleted) {
+					room(changes, dir).add(name);
+				}
+			} else if (dir.getParent() != null && storyRoot.equals(dir.getParent().getParent())) {
+				// A file of a question directory
+				room(changes, dir.getParent()).add(dir.getFileName().toString());
+			}
+		}
+	}
+
+	private Set<String> room(Changes changes, Path roomDir) {
+		return changes.rooms.computeIfAbsent(storyDir + roomDir.getFileName(), r -> new TreeSet<>());
+	}
+
+	private void watch(Path dir, int depth) {
+		try {
+			registerTree(dir, depth);
+		} catch (IOException e) {
+			System.err.println("Couldn't watch " + dir + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Re-reads what changed and publishes the resulting content version.
+	 */
+	private void apply(Changes changes) {
+		GameContent previous = GameContent.standard();
+		ContentRepository repository = ContentRepository.getInstance();
+		if (changes.overflow) {
+			repository.refresh();
+		}
+		for (Map.Entry<String, Set<String>> room : changes.rooms.entrySet()) {
+			repository.reload(room.getKey(), room.getValue());
+		}
+		for (String file : changes.files) {
+			ASCII.reload(file);
+		}
+
+		GameContent content = GameContent.standard();
+		if (content == previous) return;
+		System.err.println("Content version " + content.getVersion() + " published after changes to "
+				+ (changes.overflow ? "the story directory" : describe(changes)));
+	}
+
+	private static String describe(Changes changes) {
+		StringBuilder text = new StringBuilder();
+		changes.rooms.forEach((room, entries) -> text.append(text.length() > 0 ? ", " : "")
+				.append(room).append(' ').append(entries));
+		for (String file : changes.files) {
+			text.append(text.length() > 0 ? ", " : "").append(file);
+		}
+		return text.toString();
+	}
+}
@@ -1,14 +1,23 @@
 package engine;
 
 import entities.Player;
+import entities.QuestionPool;
 import entities.Room;
 import entities.Timer;
 import entities.Question;
+import metrics.Counter;
+import metrics.GameEvents;
+import metrics.Histogram;
+import metrics.Metrics;
 
 import java.io.FileNotFoundException;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The {@code Engine} class manages the core game logic, including the player,
@@ -24,18 +33,82 @@ import java.util.Scanner;
  * <li>Validate player answers and update the game state.</li>
  * </ul>
  * 
+ * <p>
+ * Questions and rooms can have optional time limits, driven by the shared
+ * {@link TimingWheel}. An expired question counts as a wrong answer; an
+ * expired room starts over. The limits default to the
+ * {@code algotraz.questionTimeLimit} and {@code algotraz.roomTimeLimit}
+ * system properties, in seconds (0 or unset means no limit).
+ * 
+ * <p>
+ * Each room visit draws its questions at random, without replacement, from
+ * the room's {@link QuestionPool}, optionally filtered by difficulty and tag.
+ * The number of questions per room and the filter default to the
+ * {@code algotraz.questionsPerRoom} (3), {@code algotraz.difficulty} (any)
+ * and {@code algotraz.tag} (any) system properties.
+ * 
+ * <p>
+ * Unless a difficulty is set, selection adapts to the player: the drawn
+ * difficulty goes up after a correct answer that was at least as fast as
+ * the average across all sessions, and down after a wrong one. Within a
+ * difficulty, the question whose live success rate is nearest 70% is
+ * preferred. Set {@code algotraz.adaptive=false} to turn this off.
+ * 
+ * <p>
+ * An engine holds only its session state in primitive fields and small
+ * arrays. Rooms, questions and art are shared, immutable
+ * {@link GameContent}, so idle sessions stay a few hundred bytes each.
+ * 
+ * <p>
+ * When a {@link SessionStore} is configured, a snapshot of the game is saved
+ * after every answer, and {@link #resume(SessionStore.Snapshot, GameOutput)}
+ * continues a saved game after a restart.
+ * 
  * @author John Jones
  * @version 1.0
  */
 public class Engine {
 
+	// Success rate adaptive selection aims for
+	private static final double TARGET_SUCCESS_RATE = 0.7;
+
+	private static final Histogram CHECK_TIME = Metrics.global().histogram("question.check");
+
+	private static final Histogram UPDATE_TIME = Metrics.global().histogram("engine.updateGameState");
+
+	private static final Histogram RENDER_TIME = Metrics.global().histogram("engine.render");
+
+	private static final Counter GAMES_STARTED = Metrics.global().counter("games.started");
+
+	private static final Counter GAMES_COMPLETED = Metrics.global().counter("games.completed");
+
+	private static final Counter GAMES_WON = Metrics.global().counter("games.won");
+
+	// Per-room counters, looked up once per room number
+	private static final Counter[] ROOM_ANSWERS = new Counter[8];
+
+	private static final Counter[] ROOM_CORRECT = new Counter[8];
+
+	private static final Counter[] ROOM_RESTARTS = new Counter[8];
+
 	private Player player;
 
-	private ArrayList<Room> rooms;
+	// Shared, immutable rooms; never copied per session
+	private GameContent content;
 
+	// Created on first use; only needed by callers of getAsciiDisplay()
 	private ASCII asciiDisplay;
 
-	private Timer gameTimer;
+	// Answer timing in primitives instead of a Timer object per session
+	private long answerStartNanos;
+
+	private long answerNanos;
+
+	// When the game and the current room visit started, for flight recorder
+	// events
+	private long gameStartNanos;
+
+	private long roomStartNanos;
 
 	private int currentRoom;
 
@@ -45,10 +118,53 @@ public class Engine {
 
 	private int[] playerPoints;
 
-	private ArrayList<Integer> questionTimes;
+	private SessionStats stats;
+
+	private final GameOutput out;
+
+	private long questionTimeLimitNanos;
+
+	private long roomTimeLimitNanos;
+
+	private TimingWheel.Timeout questionTimeout;
+
+	private TimingWheel.Timeout roomTimeout;
+
+	// Bumped on every prompt and room entry so stale deadlines are ignored
+	private int questionToken;
+
+	private int roomToken;
+
+	private int questionsPerRoom;
+
+	private int questionDifficulty;
+
+	private String questionTag;
+
+	private boolean adaptive;
+
+	// Draw questions in room order instead of at random
+	private boolean ordered;
+
+	// Record answers in, and score with, the questions' live statistics
+	private boolean calibrated = true;
+
+	// Difficulty adaptive selection draws at; follows the player's answers
+	private int skill;
+
+	// Positions in the room of the questions drawn for the current visit,
+	// -1 where none is drawn yet; null until first needed
+	private int[] roomPositions;
+
+	private int snapshotSlot = -1;
+
+	private int snapshotSequence;
+
+	// Code the player resumes this game with; issued on the first save
+	private String resumeToken;
 
 	/**
-	 * Creates an Engine object to manage the game.
+	 * Creates an Engine object to manage the game on the console.
 	 *
 	 * @param player The player object used to initialize the game.
 	 *
@@ -57,30 +173,56 @@ public class Engine {
 	 *               and loads the rooms from predefined directories.
 	 */
 	public Engine(Player player) {
-		this.setPlayer(player);
-		this.gameTimer = new Timer();
-		this.asciiDisplay = new ASCII("src/data/ascii/welcome.txt");
-		
-		// Initialize the game with the player ID and name
-		initializeGame(player.getId(), player.getName());
+		this(player, System.out);
+	}
 
-		// Array of room directory names
-		String[] roomDirs = { "room1", "room2", "room3" };
-		int[] roomThresholds = { 250, 200, 100 };
-		rooms = new ArrayList<Room>();
+	/**
+	 * Creates an Engine object that writes all game output to the given stream
+	 * instead of the console, a frame at a time through a
+	 * {@link TerminalRenderer}. Used to run one game per network session.
+	 *
+	 * @param player The player object used to initialize the game.
+	 * @param out    The stream the game screens are written to.
+	 */
+	public Engine(Player player, PrintStream out) {
+		this(player, new TerminalRenderer(out));
+	}
 
-		// Loop through each room directory
-		for (int i = 0; i < roomDirs.length; i++) {
-			int roomNumber = i + 1; // Calculate the room number (1-based index)
+	/**
+	 * Creates an Engine object that writes all game output to the given
+	 * {@link GameOutput}.
+	 *
+	 * @param player The player object used to initialize the game.
+	 * @param out    The output the game screens are written to.
+	 */
+	public Engine(Player player, GameOutput out) {
+		this(player, out, GameContent.standard());
+	}
 
-			// Create a Room object for the current room
-			Room room = new Room("src/data/story/" + roomDirs[i], roomNumber, roomThresholds[i]);
+	/**
+	 * Creates an Engine object that plays the given content and writes all
+	 * game output to the given {@link GameOutput}.
+	 *
+	 * @param player  The player object used to initialize the game.
+	 * @param out     The output the game screens are written to.
+	 * @param content The shared rooms to play.
+	 */
+	public Engine(Player player, GameOutput out, GameContent content) {
+		this.out = out;
+		this.questionTimeLimitNanos = TimeUnit.SECONDS.toNanos(Long.getLong("algotraz.questionTimeLimit", 0));
+		this.roomTimeLimitNanos = TimeUnit.SECONDS.toNanos(Long.getLong("algotraz.roomTimeLimit", 0));
+		this.questionsPerRoom = Integer.getInteger("algotraz.questionsPerRoom", 3);
+		this.questionDifficulty = Integer.getInteger("algotraz.difficulty", QuestionPool.ANY_DIFFICULTY);
+		this.questionTag = System.getProperty("algotraz.tag");
+		this.adaptive = !"false".equalsIgnoreCase(System.getProperty("algotraz.adaptive"));
+		this.setPlayer(player);
+		this.content = content;
 
-			// Add to rooms list
-			rooms.add(room);
-		}
+		// Initialize the game with the player ID and name
+		initializeGame(player.getId(), player.getName());
 	}
 
+
 	/**
 	 * Retrieves the current player instance associated with the engine.
 	 *
@@ -105,7 +247,16 @@ public class Engine {
 	 * @return a list of {@link Room} objects representing the rooms.
 	 */
 	public List<Room> getRooms() {
-		return this.rooms;
+		return this.content.getRooms();
+	}
+
+	/**
+	 * Retrieves the shared content this game is played with.
+	 *
+	 * @return the game content
+	 */
+	public GameContent getContent() {
+		return this.content;
 	}
 
 	/**
@@ -114,7 +265,10 @@ public class Engine {
 	 * @param rooms the list of Room objects to be set
 	 */
 	public void setRooms(ArrayList<Room> rooms) {
-		this.rooms = rooms;
+		this.content = new GameContent(rooms);
+		this.stats = new SessionStats(rooms.size());
+		this.playerPoints = new int[rooms.size()];
+		this.roomPositions = null;
 	}
 
 	/**
@@ -123,6 +277,9 @@ public class Engine {
 	 * @return the ASCII display object.
 	 */
 	public ASCII getAsciiDisplay() {
+		if (this.asciiDisplay == null) {
+			this.asciiDisplay = new ASCII("src/data/ascii/welcome.txt");
+		}
 		return this.asciiDisplay;
 	}
 
@@ -149,6 +306,25 @@ public class Engine {
 		return this.getRooms().get(roomIndex - 1);
 	}
 
+	/**
+	 * Retrieves the 1-based number of the room the player is in.
+	 *
+	 * @return the current room number
+	 */
+	public int getCurrentRoomNumber() {
+		return this.currentRoom;
+	}
+
+	/**
+	 * Retrieves the 1-based number of the question the player is on within
+	 * the current room.
+	 *
+	 * @return the current question number
+	 */
+	public int getCurrentQuestionNumber() {
+		return this.currentQuestion;
+	}
+
 	/**
 	 * Retrieves the player's current score.
 	 *
@@ -165,22 +341,72 @@ public class Engine {
 	 * @return the total score as an integer.
 	 */
 	public int totalPlayerScore() {
-		return getPlayerScore(1) + getPlayerScore(2) + getPlayerScore(3);
+		int total = 0;
+		for (int points : playerPoints) {
+			total += points;
+		}
+		return total;
 	}
 
 	/**
-	 * Retrieves the current question from the specified room based on the given
-	 * question index.
+	 * Calculates the points for a correct answer. A question is worth
+	 * {@code scoreWeight * 20} points when answered instantly, halving after
+	 * one second, a third after two seconds, and so on. Time is continuous, so
+	 * a 0.1 second answer scores more than a 0.9 second one.
+	 *
+	 * @param scoreWeight  the question's score weight
+	 * @param elapsedNanos how long the player took to answer, in nanoseconds
+	 * @return the points earned
+	 */
+	public static int calculatePoints(int scoreWeight, long elapsedNanos) {
+		return (int) (scoreWeight * 20L * Timer.NANOS_PER_SECOND
+				/ (Math.max(0, elapsedNanos) + Timer.NANOS_PER_SECOND));
+	}
+
+	/**
+	 * Retrieves the question drawn for the given position of the current room
+	 * visit, drawing it from the room's pool on first use.
 	 *
 	 * @param quesIndex The index of the question to retrieve (1-based index).
 	 * @return The {@code Question} object at the specified index in the current
-	 *         room.
+	 *         room visit.
 	 * @throws IndexOutOfBoundsException If the question index is out of range.
 	 * @throws NullPointerException      If the current room or questions list is
 	 *                                   null.
 	 */
 	public Question getCurrentQuestion(int quesIndex) {
-		return this.getCurrentRoom(currentRoom).getQuestions().get(quesIndex - 1);
+		int[] drawn = roomPositions();
+		Room room = getCurrentRoom(currentRoom);
+		if (drawn[quesIndex - 1] < 0) {
+			QuestionPool pool = room.getPool();
+			drawn[quesIndex - 1] = ordered ? pool.first(questionDifficulty, questionTag, drawn)
+					: isAdaptive()
+					? pool.draw(skill, questionTag, TARGET_SUCCESS_RATE, drawn, ThreadLocalRandom.current())
+					: pool.draw(questionDifficulty, questionTag, drawn, ThreadLocalRandom.current());
+		}
+		return room.getQuestions().get(drawn[quesIndex - 1]);
+	}
+
+	/**
+	 * Retrieves the number of questions in the current room visit.
+	 *
+	 * @return the question count
+	 */
+	public int getQuestionsInRoom() {
+		return roomPositions().length;
+	}
+
+	/**
+	 * Gets the positions of the questions drawn for the current room visit,
+	 * starting a new visit after the room changed or restarted.
+	 */
+	private int[] roomPositions() {
+		if (roomPositions == null) {
+			int count = Math.min(questionsPerRoom, getCurrentRoom(currentRoom).getPool().size());
+			roomPositions = new int[count];
+			Arrays.fill(roomPositions, -1);
+		}
+		return roomPositions;
 	}
 
 	/**
@@ -188,8 +414,261 @@ public class Engine {
 	 * This method is used to clear the console output for a fresh display.
 	 */
 	public void clearOutput() {
-		System.out.print("\033[H\033[2J");
-		System.out.flush();
+		out.clear();
+	}
+
+	/**
+	 * Retrieves the answer statistics of the current game.
+	 *
+	 * @return the session statistics
+	 */
+	public SessionStats getStats() {
+		return this.stats;
+	}
+
+	/**
+	 * Retrieves the total points needed to win: the sum of all room
+	 * thresholds plus a 200 point bonus.
+	 *
+	 * @return the winning score
+	 */
+	public int getPointsToWin() {
+		return this.content.getPointsToWin();
+	}
+
+	/**
+	 * Sets how long the player has to answer each question. Applies from the
+	 * next prompt on.
+	 *
+	 * @param limit the time limit, or 0 for none
+	 * @param unit  the unit of {@code limit}
+	 */
+	public synchronized void setQuestionTimeLimit(long limit, TimeUnit unit) {
+		this.questionTimeLimitNanos = unit.toNanos(limit);
+	}
+
+	/**
+	 * Sets how long the player has to finish each room. Applies from the next
+	 * room entry or restart on.
+	 *
+	 * @param limit the time limit, or 0 for none
+	 * @param unit  the unit of {@code limit}
+	 */
+	public synchronized void setRoomTimeLimit(long limit, TimeUnit unit) {
+		this.roomTimeLimitNanos = unit.toNanos(limit);
+	}
+
+	/**
+	 * Sets how many questions each room visit draws. Applies from the next
+	 * room entry or restart on.
+	 *
+	 * @param count the number of questions per room
+	 */
+	public synchronized void setQuestionsPerRoom(int count) {
+		this.questionsPerRoom = Math.max(1, count);
+	}
+
+	/**
+	 * Sets the difficulty and tag that questions are drawn with. When no
+	 * undrawn question matches, any question is drawn instead.
+	 *
+	 * @param difficulty the difficulty, or {@link QuestionPool#ANY_DIFFICULTY}
+	 * @param tag        the tag, or null for any
+	 */
+	public synchronized void setQuestionFilter(int difficulty, String tag) {
+		this.questionDifficulty = difficulty;
+		this.questionTag = tag;
+	}
+
+	/**
+	 * Turns adaptive question selection on or off. It only applies while no
+	 * difficulty is set with {@link #setQuestionFilter(int, String)}.
+	 *
+	 * @param adaptive whether selection follows the player's answers
+	 */
+	public synchronized void setAdaptive(boolean adaptive) {
+		this.adaptive = adaptive;
+	}
+
+	private boolean isAdaptive() {
+		return adaptive && questionDifficulty == QuestionPool.ANY_DIFFICULTY;
+	}
+
+	/**
+	 * Makes each room visit take its questions in room order (after the
+	 * filter) instead of drawing them at random, so the same answers always
+	 * meet the same questions. Applies from the next draw on.
+	 *
+	 * @param ordered whether questions are taken in room order
+	 */
+	public synchronized void setOrderedQuestions(boolean ordered) {
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Turns live calibration on or off. When it is off, answers are not
+	 * recorded in the questions' shared statistics and points use each
+	 * question's base score weight, so a game's score does not depend on
+	 * what other sessions answered.
+	 *
+	 * @param calibrated whether the game uses live question statistics
+	 */
+	public synchronized void setCalibrated(boolean calibrated) {
+		this.calibrated = calibrated;
+	}
+
+	/**
+	 * Records an answer in the question's live statistics and moves the
+	 * adaptive difficulty.
+	 *
+	 * @param question     the answered question
+	 * @param correct      whether the answer was correct
+	 * @param elapsedNanos how long the player took
+	 */
+	private void recordAnswer(Question question, boolean correct, long elapsedNanos) {
+		roomCounter(ROOM_ANSWERS, "answers").increment();
+		if (correct) {
+			roomCounter(ROOM_CORRECT, "correct").increment();
+		}
+
+		// Compare with the average before this answer is counted in it
+		long typical = question.getStats().getAverageNanos();
+		if (calibrated) {
+			question.recordAnswer(correct, elapsedNanos);
+		}
+
+		if (correct && (typical == 0 || elapsedNanos <= typical)) {
+			skill = Math.min(Question.MAX_DIFFICULTY, skill + 1);
+		} else if (!correct) {
+			skill = Math.max(1, skill - 1);
+		}
+	}
+
+	/**
+	 * Gets the current room's counter for a metric, such as
+	 * {@code room.2.correct}.
+	 */
+	private Counter roomCounter(Counter[] cache, String metric) {
+		if (currentRoom > cache.length) {
+			return Metrics.global().counter("room." + currentRoom + "." + metric);
+		}
+		// Racing lookups store the same counter
+		Counter counter = cache[currentRoom - 1];
+		if (counter == null) {
+			counter = Metrics.global().counter("room." + currentRoom + "." + metric);
+			cache[currentRoom - 1] = counter;
+		}
+		return counter;
+	}
+
+	/**
+	 * Continues a game saved in a {@link SessionStore}. The game picks up at
+	 * the saved room and question; call {@link #enterRoom()} and
+	 * {@link #promptQuestion()} to show it. If the rooms changed shape since
+	 * the snapshot, the game starts over but keeps the snapshot's slot.
+	 *
+	 * @param snapshot the saved game
+	 * @param out      the output the game screens are written to
+	 * @return the resumed game
+	 */
+	public static Engine resume(SessionStore.Snapshot snapshot, GameOutput out) {
+		Engine engine = new Engine(new Player(snapshot.playerId(), snapshot.playerName()), out);
+		engine.restore(snapshot);
+		return engine;
+	}
+
+	private synchronized void restore(SessionStore.Snapshot snapshot) {
+		snapshotSlot = snapshot.slot();
+		snapshotSequence = snapshot.sequence();
+		resumeToken = snapshot.token();
+		int roomCount = getRooms().size();
+		if (snapshot.points().length != roomCount || snapshot.room() < 1 || snapshot.room() > roomCount
+				|| snapshot.stats().getRoomCount() != roomCount) {
+			return;
+		}
+
+		currentRoom = snapshot.room();
+		skill = snapshot.skill();
+		playerPoints = snapshot.points().clone();
+		stats = snapshot.stats();
+
+		// Bring back the questions already drawn for this visit
+		int[] drawn = roomPositions();
+		int size = getCurrentRoom(currentRoom).getQuestions().size();
+		int[] saved = snapshot.questions();
+		for (int i = 0; i < Math.min(saved.length, drawn.length); i++) {
+			if (saved[i] < size) {
+				drawn[i] = saved[i];
+			}
+		}
+		currentQuestion = Math.max(1, Math.min(snapshot.question(), drawn.length));
+	}
+
+	/**
+	 * Saves the game and holds its snapshot in the store for the player to
+	 * claim when they reconnect. Called when the player disconnects mid-game.
+	 */
+	public synchronized void suspend() {
+		cancelTimeout(questionTimeout);
+		cancelTimeout(roomTimeout);
+		if (gameComplete) return;
+		GameEvents.sessionEnded(player.getId(), currentRoom, totalPlayerScore(), false, false,
+				System.nanoTime() - gameStartNanos);
+		SessionStore.Snapshot snapshot = saveSnapshot();
+		if (snapshot != null) {
+			SessionStore.global().hold(snapshot);
+		}
+	}
+
+	/**
+	 * Writes the game's snapshot to the store, if there is one.
+	 *
+	 * @return the saved snapshot, or null if none was saved
+	 */
+	private SessionStore.Snapshot saveSnapshot() {
+		SessionStore store = SessionStore.global();
+		if (store == null) return null;
+		if (snapshotSlot < 0 && (snapshotSlot = store.allocate()) < 0) return null;
+		// The code is only kept, and shown, once a snapshot holding it is saved
+		String token = resumeToken == null ? SessionStore.newToken() : resumeToken;
+
+		SessionStore.Snapshot snapshot = new SessionStore.Snapshot(snapshotSlot, ++snapshotSequence,
+				player.getId(), player.getName(), token, currentRoom, currentQuestion, skill, playerPoints,
+				roomPositions(), stats);
+		if (!store.save(snapshot)) {
+			if (resumeToken == null) {
+				// Nothing was ever saved in the slot, so give it back
+				store.remove(snapshotSlot);
+				snapshotSlot = -1;
+			}
+			return null;
+		}
+		if (resumeToken == null) {
+			resumeToken = token;
+			out.println("Your resume code is " + resumeToken
+					+ ". If you get disconnected, enter it with your name to continue this game.\n");
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Erases the game's snapshot once it is over.
+	 */
+	private void removeSnapshot() {
+		if (snapshotSlot >= 0) {
+			SessionStore.global().remove(snapshotSlot);
+			snapshotSlot = -1;
+			resumeToken = null;
+		}
+	}
+
+	/**
+	 * Returns whether the player has finished the final room.
+	 *
+	 * @return true once the game is complete
+	 */
+	public boolean isGameComplete() {
+		return gameComplete;
 	}
 
 	/**
@@ -210,41 +689,226 @@ public class Engine {
 	 * </ul>
 	 */
 	public void startGame(Scanner scanner) {
-		// Get current room of the game
-		String roomDescription = getCurrentRoom(currentRoom).getDescription();
+		enterRoom();
 
-		// Print to output
+		while (!gameComplete) {
+			promptQuestion();
+
+			// Get input and validate using processInput
+			String playerAnswer = scanner.nextLine().trim();
+
+			submitAnswer(playerAnswer);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Clears the screen and displays the banner and description of the current
+	 * room.
+	 */
+	public synchronized void enterRoom() {
+		long start = System.nanoTime();
 		clearOutput();
-		System.out.println("\n\n=== Entering Room " + currentRoom + " ===\n");
-		System.out.println(roomDescription + "\n");
+		printRoomBanner();
+		armRoomDeadline();
+		RENDER_TIME.recordSince(start);
+		GameEvents.roomEntered(player.getId(), currentRoom, getQuestionsInRoom());
+	}
 
-		while (!gameComplete) {
-			Question question = getCurrentQuestion(currentQuestion);
+	/**
+	 * Displays the current question and starts timing the player's answer.
+	 * Everything written so far is flushed, since the next step is waiting for
+	 * the player.
+	 */
+	public synchronized void promptQuestion() {
+		long start = System.nanoTime();
+		Question question = getCurrentQuestion(currentQuestion);
 
-			System.out.println("Problem " + currentQuestion + "\n" + question.getQuestion());
-			System.out.print("Your answer: ");
+		out.println("Problem " + currentQuestion);
+		out.printContent(question.getQuestion());
+		out.print("\n");
+		out.printContent("Your answer: ");
+		out.flush();
+		RENDER_TIME.recordSince(start);
 
-			// Reset and start timer
-			gameTimer.resetTime();
-			gameTimer.startTime();
+		// Start timing the answer
+		answerStartNanos = System.nanoTime();
+		answerNanos = 0;
 
-			// Get input and validate using processInput
-			String playerAnswer = scanner.nextLine().trim();
+		armQuestionDeadline();
+	}
 
-			// Stop timer
-			gameTimer.stopTime();
+	/**
+	 * Grades the player's answer to the current question and advances the game
+	 * state. Callers that drive the game one input at a time (such as the
+	 * non-blocking server) call this instead of {@link #startGame(Scanner)}.
+	 *
+	 * @param playerAnswer the trimmed answer the player entered
+	 */
+	public synchronized void submitAnswer(String playerAnswer) {
+		// The game may have ended on a deadline while waiting for input
+		if (gameComplete) return;
+
+		// Stop timing the answer
+		stopAnswerTimer();
+		submitAnswer(playerAnswer, answerNanos);
+	}
+
+	/**
+	 * Grades an answer that took the given time, instead of the time measured
+	 * since {@link #promptQuestion()}. Used by callers that time answers
+	 * themselves, such as scripted replays.
+	 *
+	 * @param playerAnswer the trimmed answer the player entered
+	 * @param elapsedNanos how long the player took to answer
+	 */
+	public synchronized void submitAnswer(String playerAnswer, long elapsedNanos) {
+		if (gameComplete) return;
+
+		cancelTimeout(questionTimeout);
+		// A deadline that already fired and waits for the lock must not
+		// grade the next question
+		questionToken++;
+		answerStartNanos = 0;
+		answerNanos = Math.max(0, elapsedNanos);
+
+		GameEvents.QuestionAnswered event = new GameEvents.QuestionAnswered();
+		event.begin();
+		int room = currentRoom;
+		int number = currentQuestion;
+
+		// Check if right from Question class
+		Question question = getCurrentQuestion(currentQuestion);
+		long start = System.nanoTime();
+		boolean correct = question.checkPlayerAnswer(playerAnswer);
+		CHECK_TIME.recordSince(start);
+
+		// Add time to the session and question statistics
+		stats.record(currentRoom, answerNanos, correct);
+		recordAnswer(question, correct, answerNanos);
+
+		// Pass to update game state
+		this.updateGameState(correct);
+		event.finish(player.getId(), room, number, question.getClass().getSimpleName(), question.getDifficulty(),
+				correct, false, answerNanos);
+	}
+
+	/**
+	 * Schedules the current question's deadline, if questions have a limit.
+	 */
+	private void armQuestionDeadline() {
+		cancelTimeout(questionTimeout);
+		int token = ++questionToken;
+		questionTimeout = questionTimeLimitNanos <= 0 ? null
+				: TimingWheel.shared().schedule(() -> questionExpired(token), questionTimeLimitNanos,
+						TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Schedules the current room's deadline, if rooms have a limit, and notes
+	 * when the room visit started.
+	 */
+	private void armRoomDeadline() {
+		roomStartNanos = System.nanoTime();
+		cancelTimeout(roomTimeout);
+		int token = ++roomToken;
+		roomTimeout = roomTimeLimitNanos <= 0 ? null
+				: TimingWheel.shared().schedule(() -> roomExpired(token), roomTimeLimitNanos,
+						TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Stops timing the current answer, keeping the elapsed time.
+	 */
+	private void stopAnswerTimer() {
+		if (answerStartNanos != 0) {
+			answerNanos = System.nanoTime() - answerStartNanos;
+			answerStartNanos = 0;
+		}
+	}
+
+	private static void cancelTimeout(TimingWheel.Timeout timeout) {
+		if (timeout != null) {
+			timeout.cancel();
+		}
+	}
+
+	/**
+	 * Fails the current question when its deadline passes before an answer
+	 * arrives, then moves on as if the player had answered wrong.
+	 *
+	 * @param token the prompt the deadline was armed for
+	 */
+	private synchronized void questionExpired(int token) {
+		if (gameComplete || token != questionToken) return;
 
-			// Add time to question times
-			questionTimes.add((int) gameTimer.getElapsedTime());
+		GameEvents.QuestionAnswered event = new GameEvents.QuestionAnswered();
+		event.begin();
+		int room = currentRoom;
+		int number = currentQuestion;
+		Question question = getCurrentQuestion(currentQuestion);
 
-			// Check if right from Question class
-			boolean correct = question.checkPlayerAnswer(playerAnswer);
+		out.println("\n\nTime's up!");
+		stopAnswerTimer();
+		stats.record(currentRoom, answerNanos, false);
+		recordAnswer(question, false, answerNanos);
+		updateGameState(false);
+		event.finish(player.getId(), room, number, question.getClass().getSimpleName(), question.getDifficulty(),
+				false, true, answerNanos);
 
-			// Pass to update game state
-			this.updateGameState(correct);
+		if (gameComplete) {
+			out.flush();
+		} else {
+			promptQuestion();
 		}
 	}
 
+	/**
+	 * Starts the current room over when its deadline passes.
+	 *
+	 * @param token the room entry the deadline was armed for
+	 */
+	private synchronized void roomExpired(int token) {
+		if (gameComplete || token != roomToken) return;
+
+		cancelTimeout(questionTimeout);
+		stopAnswerTimer();
+		restartRoom("Time is up for this room! Starting room over\n", true);
+		saveSnapshot();
+		promptQuestion();
+	}
+
+	/**
+	 * Clears the screen and starts the current room over with zero points.
+	 *
+	 * @param message  the reason shown to the player
+	 * @param timedOut whether the room's deadline passed
+	 */
+	private void restartRoom(String message, boolean timedOut) {
+		GameEvents.roomRetried(player.getId(), currentRoom, getPlayerScore(currentRoom),
+				getCurrentRoom(currentRoom).getRoomThreshold(), timedOut, System.nanoTime() - roomStartNanos);
+		clearOutput();
+
+		printRoomBanner();
+
+		out.println(message);
+		currentQuestion = 1;
+		roomPositions = null;
+		playerPoints[currentRoom - 1] = 0;
+		armRoomDeadline();
+		roomCounter(ROOM_RESTARTS, "restarts").increment();
+	}
+
+	/**
+	 * Displays the "Entering Room" banner and the description of the current
+	 * room.
+	 */
+	private void printRoomBanner() {
+		out.println("\n\n=== Entering Room " + currentRoom + " ===\n");
+		out.printContent(getCurrentRoom(currentRoom).getDescription());
+		out.print("\n\n");
+	}
+
 	/**
 	 * Initializes the game by setting up the player and starting conditions.
 	 *
@@ -252,18 +916,27 @@ public class Engine {
 	 * @param playerName The name of the player.
 	 */
 	public void initializeGame(String playerID, String playerName) {
-		// Initialize player
-		this.setPlayer(new Player(playerID, playerName));
+		// Initialize player, reusing the current one if it is the same
+		if (player == null || !player.getId().equals(playerID) || !player.getName().equals(playerName)) {
+			this.setPlayer(new Player(playerID, playerName));
+		}
 
 		// Set current room to first room in list
 		currentRoom = 1;
 		currentQuestion = 1;
+		roomPositions = null;
+		skill = Question.DEFAULT_DIFFICULTY;
 
 		gameComplete = false;
-		questionTimes = new ArrayList<Integer>();
-		playerPoints = new int[3];
-		// Reset game timer
-		gameTimer.resetTime();
+		stats = content == null ? null : new SessionStats(content.getRooms().size());
+		playerPoints = new int[content == null ? 0 : content.getRooms().size()];
+		// Reset answer timing
+		answerStartNanos = 0;
+		answerNanos = 0;
+		gameStartNanos = System.nanoTime();
+		roomStartNanos = gameStartNanos;
+		GAMES_STARTED.increment();
+		GameEvents.sessionStarted(playerID, playerName, content == null ? 0 : content.getVersion());
 	}
 
 	/**
@@ -277,105 +950,125 @@ public class Engine {
 	 * @param playerCorrect A boolean indicating whether the player's answer was
 	 *                      correct.
 	 */
-	public void updateGameState(boolean playerCorrect) {
+	public synchronized void updateGameState(boolean playerCorrect) {
+		long start = System.nanoTime();
+		advance(playerCorrect);
+		UPDATE_TIME.recordSince(start);
+	}
+
+	/**
+	 * Scores the answer and moves to the next question, the next room, a
+	 * restart of the room, or the end of the game.
+	 */
+	private void advance(boolean playerCorrect) {
 		int points = 0; // Initialize points
 
 		if (!playerCorrect) {
-			System.out.println("\nIncorrect.");
+			out.println("\nIncorrect.");
 		}
 
 		if (playerCorrect) {
-			System.out.println("\nCorrect!");
+			out.println("\nCorrect!");
 
 			// Calculate points
-			points = (int) (this.getCurrentQuestion(currentQuestion).getScoreWeight() * 20
-					/ (gameTimer.getElapsedTime() + 1));
+			Question question = this.getCurrentQuestion(currentQuestion);
+			points = calculatePoints(calibrated ? question.getScoreWeight() : question.getBaseScoreWeight(),
+					answerNanos);
 			playerPoints[currentRoom - 1] += points;
 		}
 
-		switch (currentQuestion) {
-			case 1:
-			case 2:
-				currentQuestion++;
-				System.out.println("Points: " + points + "\n");
-				break;
-			case 3:
-				System.out.println("Points: " + points + "\n");
-
-				// Check if player score meets room threshold
-				if (getPlayerScore(currentRoom) >= getCurrentRoom(currentRoom).getRoomThreshold()) {
-					// Check if at final room
-					if (currentRoom == 3) {
-						// Game complete
-						gameComplete = true;
-
-						// Print winning or losing ASCII and message
-						try {
-							Scanner fileScanner = new Scanner("invalidFile.txt");
-
-							// Check if player score is greater than total points of all rooms
-							if (totalPlayerScore() > rooms.stream()
-									.mapToInt(Room::getRoomThreshold).sum() + 200) {
-								fileScanner = new Scanner(new java.io.File("src/data/story/youWin.txt"));
-								asciiDisplay.readFile("src/data/ascii/youWinASCII.txt");
-							} else {
-								fileScanner = new Scanner(new java.io.File("src/data/story/gameOver.txt"));
-								asciiDisplay.readFile("src/data/ascii/gameOverASCII.txt");
-							}
-
-							System.out.println(asciiDisplay.toString());
-
-							while (fileScanner.hasNextLine()) {
-								System.out.println(fileScanner.nextLine());
-							}
-						} catch (FileNotFoundException e) {
-							e.printStackTrace();
-						}
-
-						// Calculate averge time per question and room times
-						int totalTime = questionTimes.stream().mapToInt(Integer::intValue).sum();
-						int averageQuestionTime = totalTime / questionTimes.size();
-						System.out.println("\n\nAverage time per question: " + averageQuestionTime + " seconds");
-						System.out.println("Average time per room: " + (totalTime / 3) + " seconds");
-						System.out.println("Total time: " + totalTime + " seconds\n");
-						System.out.println("Total points: " + totalPlayerScore() + "\n");
-						System.out.println("Points required to win: "
-								+ (rooms.stream().mapToInt(Room::getRoomThreshold).sum() + 200) + "\n");
-						System.out.println("Game complete! Thanks for playing!\n");
+		GameJournal journal = GameJournal.global();
+		if (journal != null) {
+			journal.append(player.getId(), currentRoom, roomPositions()[currentQuestion - 1], answerNanos,
+					playerCorrect, points);
+		}
+
+		out.println("Points: " + points + "\n");
 
+		// Move on until the last question of the room visit is answered
+		if (currentQuestion < roomPositions().length) {
+			currentQuestion++;
+			saveSnapshot();
+			return;
+		}
+
+		// Check if player score meets room threshold
+		if (getPlayerScore(currentRoom) >= getCurrentRoom(currentRoom).getRoomThreshold()) {
+			// Check if at final room
+			if (currentRoom == getRooms().size()) {
+				// Game complete
+				gameComplete = true;
+				cancelTimeout(questionTimeout);
+				cancelTimeout(roomTimeout);
+
+				// Print winning or losing ASCII and message
+				try {
+					String artPath;
+					String storyPath;
+
+					// Check if player score is greater than total points of all rooms
+					if (totalPlayerScore() > getPointsToWin()) {
+						storyPath = GameContent.WIN_STORY;
+						artPath = GameContent.WIN_ART;
 					} else {
-						clearOutput();
-
-						// Move to next room
-						System.out.println(
-								"Room threshold met! Moving to next room.\nRoom points: " + getPlayerScore(currentRoom)
-										+ "\nPlayer points: " + totalPlayerScore() + "\n");
-						currentRoom++;
-						currentQuestion = 1;
-
-						// Print new room to output
-						// Get current room of the game
-						String roomDescription = getCurrentRoom(currentRoom).getDescription();
-
-						// Print to output
-						System.out.println("\n\n=== Entering Room " + currentRoom + " ===\n");
-						System.out.println(roomDescription + "\n");
+						storyPath = GameContent.LOSE_STORY;
+						artPath = GameContent.LOSE_ART;
 					}
-				} else {
-					clearOutput();
 
-					String roomDescription = getCurrentRoom(currentRoom).getDescription();
-					System.out.println("\n\n=== Entering Room " + currentRoom + " ===\n");
-					System.out.println(roomDescription + "\n");
+					// Shown from the content version this game started with
+					out.printContent(content.getScreen(artPath));
+					out.print("\n");
+					out.printContent(content.getScreen(storyPath));
+				} catch (FileNotFoundException e) {
+					e.printStackTrace();
+				}
+
+				// Calculate averge time per question and room times
+				long totalTime = stats.getTotalNanos() / Timer.NANOS_PER_SECOND;
+				long averageQuestionTime = stats.getAverageNanos() / Timer.NANOS_PER_SECOND;
+				out.println("\n\nAverage time per question: " + averageQuestionTime + " seconds");
+				out.println("Average time per room: " + (totalTime / getRooms().size()) + " seconds");
+				out.println("Total time: " + totalTime + " seconds\n");
+				out.println("Total points: " + totalPlayerScore() + "\n");
+				out.println("Points required to win: " + getPointsToWin() + "\n");
 
-					System.out.println("Not enough points to move to next room. Starting room over\n");
-					currentQuestion = 1;
-					playerPoints[currentRoom - 1] = 0;
+				boolean won = totalPlayerScore() > getPointsToWin();
+				GAMES_COMPLETED.increment();
+				if (won) {
+					GAMES_WON.increment();
 				}
+				GameEvents.sessionEnded(player.getId(), currentRoom, totalPlayerScore(), true, won,
+						System.nanoTime() - gameStartNanos);
+
+				// Report the score to the process-wide leaderboard, one entry per name
+				Leaderboard leaderboard = Leaderboard.global();
+				String key = Leaderboard.nameKey(player.getName());
+				leaderboard.submit(key, player.getName(), totalPlayerScore());
+				out.println("Leaderboard rank: " + leaderboard.rankOf(key)
+						+ " of " + leaderboard.size() + "\n");
+				out.println("Game complete! Thanks for playing!\n");
+				removeSnapshot();
+
+			} else {
+				clearOutput();
+
+				// Move to next room
+				out.println(
+						"Room threshold met! Moving to next room.\nRoom points: " + getPlayerScore(currentRoom)
+								+ "\nPlayer points: " + totalPlayerScore() + "\n");
+				currentRoom++;
+				currentQuestion = 1;
+				roomPositions = null;
 
-				break;
-			default:
-				break;
+				// Print new room to output
+				printRoomBanner();
+				armRoomDeadline();
+				GameEvents.roomEntered(player.getId(), currentRoom, getQuestionsInRoom());
+				saveSnapshot();
+			}
+		} else {
+			restartRoom("Not enough points to move to next room. Starting room over\n", false);
+			saveSnapshot();
 		}
 	}
 }
@@ -0,0 +1,188 @@
+package engine;
+
+import entities.ContentRepository;
+import entities.Room;
+
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code GameContent} class is the immutable content one game is played
+ * with: its rooms, in order, and the score needed to win. Every session
+ * playing the standard story holds a reference to the same instance instead
+ * of building its own room list.
+ *
+ * <p>
+ * Each instance is one numbered version of the content. When rooms or end
+ * screens are reloaded, a new version is built and published in a single
+ * write; games already running keep the version they started with, and new
+ * games get the new one. Building a version reads only cached content.
+ *
+ * @version 1.0
+ */
+public final class GameContent {
+
+	static final String STORY_DIR = "src/data/story/";
+
+	static final String ASCII_DIR = "src/data/ascii/";
+
+	/**
+	 * The story and art files shown when a game ends.
+	 */
+	static final String WIN_STORY = STORY_DIR + "youWin.txt";
+
+	static final String WIN_ART = ASCII_DIR + "youWinASCII.txt";
+
+	static final String LOSE_STORY = STORY_DIR + "gameOver.txt";
+
+	static final String LOSE_ART = ASCII_DIR + "gameOverASCII.txt";
+
+	private static final String[] SCREENS = { WIN_STORY, WIN_ART, LOSE_STORY, LOSE_ART };
+
+	private static final String[] ROOM_DIRS = { "room1", "room2", "room3" };
+
+	private static final int[] ROOM_THRESHOLDS = { 250, 200, 100 };
+
+	// Bonus on top of the room thresholds needed to win
+	private static final int WIN_BONUS = 200;
+
+	private static final AtomicInteger VERSIONS = new AtomicInteger();
+
+	private static volatile GameContent standard;
+
+	// Run when a reload replaces the standard content
+	private static final List<Runnable> PUBLISH_LISTENERS = new CopyOnWriteArrayList<>();
+
+	private final int version;
+
+	private final List<Room> rooms;
+
+	private final Map<String, String> screens;
+
+	private final int pointsToWin;
+
+	/**
+	 * Creates game content from a list of rooms. End screens are read from
+	 * the shared {@link ASCII} cache when they are shown.
+	 *
+	 * @param rooms the rooms, in play order
+	 */
+	public GameContent(List<Room> rooms) {
+		this(rooms, Map.of());
+	}
+
+	private GameContent(List<Room> rooms, Map<String, String> screens) {
+		this.version = VERSIONS.incrementAndGet();
+		this.rooms = List.copyOf(rooms);
+		this.screens = Map.copyOf(screens);
+		this.pointsToWin = this.rooms.stream().mapToInt(Room::getRoomThreshold).sum() + WIN_BONUS;
+	}
+
+	/**
+	 * Gets the content of the standard story. The same instance is returned
+	 * until the {@link ContentRepository} hands out a reloaded room or an
+	 * end screen is reloaded into the {@link ASCII} cache.
+	 *
+	 * @return the shared standard content
+	 */
+	public static GameContent standard() {
+		ContentWatcher.global();
+		ContentRepository repository = ContentRepository.getInstance();
+		GameContent current = standard;
+		Room[] rooms = new Room[ROOM_DIRS.length];
+		boolean same = current != null;
+		for (int i = 0; i < ROOM_DIRS.length; i++) {
+			rooms[i] = repository.getRoom(STORY_DIR + ROOM_DIRS[i], i + 1, ROOM_THRESHOLDS[i]);
+			same = same && current.rooms.get(i) == rooms[i];
+		}
+		for (int i = 0; same && i < SCREENS.length; i++) {
+			same = current.screens.get(SCREENS[i]) == cachedScreen(SCREENS[i]);
+		}
+		if (same) {
+			return current;
+		}
+
+		Map<String, String> screens = new HashMap<>();
+		for (String path : SCREENS) {
+			String text = cachedScreen(path);
+			if (text != null) {
+				screens.put(path, text);
+			}
+		}
+		// Racing builders produce equal content, so the last write may win
+		GameContent built = new GameContent(List.of(rooms), screens);
+		standard = built;
+		if (current != null) {
+			for (Runnable listener : PUBLISH_LISTENERS) {
+				listener.run();
+			}
+		}
+		return built;
+	}
+
+	/**
+	 * Registers an action to run each time a reload publishes a new version
+	 * of the standard content, such as dropping caches derived from the old
+	 * one. Actions run on the thread that built the version.
+	 *
+	 * @param listener the action
+	 */
+	public static void onPublish(Runnable listener) {
+		PUBLISH_LISTENERS.add(listener);
+	}
+
+	private static String cachedScreen(String path) {
+		try {
+			return ASCII.read(path);
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Gets this content's version number. Every instance built gets a higher
+	 * number than the ones before it.
+	 *
+	 * @return the version number
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the text of an end-of-game story or art file as it was when this
+	 * version was built.
+	 *
+	 * @param path the file's path
+	 * @return the file's contents
+	 * @throws FileNotFoundException if the file is not part of this version
+	 *                               and does not exist
+	 */
+	public String getScreen(String path) throws FileNotFoundException {
+		String text = screens.get(path);
+		return text != null ? text : ASCII.read(path);
+	}
+
+	/**
+	 * Gets the rooms, in play order.
+	 *
+	 * @return the read-only list of rooms
+	 */
+	public List<Room> getRooms() {
+		return rooms;
+	}
+
+	/**
+	 * Gets the total points needed to win: the sum of all room thresholds
+	 * plus a 200 point bonus.
+	 *
+	 * @return the winning score
+	 */
+	public int getPointsToWin() {
+		return pointsToWin;
+	}
+}
@@ -0,0 +1,416 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * The {@code GameJournal} class is an append-only binary journal of answer
+ * events, written through memory-mapped segment files.
+ *
+ * <p>
+ * Appending reserves space in the current segment with a compare-and-set
+ * and copies the record into the mapping, so recording an answer never
+ * blocks on I/O. A background thread forces dirty segments to disk every few
+ * milliseconds (group commit), making all records appended since the last
+ * commit durable together. When a segment is full, a new one is started.
+ *
+ * <p>
+ * A segment starts with a magic number and format version. Each record is a
+ * 4-byte length, a CRC-32C of the event fields, then the fields, padded to
+ * 8 bytes. The CRC is written last. A writer that dies after reserving space
+ * leaves a hole, and records reserved after it may still be complete, so
+ * recovery does not stop at the first gap: it checks the CRC of every
+ * record, steps over holes and torn records 8 bytes at a time, and resumes
+ * after the last complete record.
+ *
+ * <p>
+ * The global journal is enabled by setting the {@code algotraz.journal}
+ * system property to a directory.
+ *
+ * @version 1.0
+ */
+public final class GameJournal implements AutoCloseable {
+
+	private static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+	private static final long DEFAULT_COMMIT_MILLIS = 10;
+
+	private static final String SEGMENT_PREFIX = "journal-";
+
+	private static final String SEGMENT_SUFFIX = ".seg";
+
+	private static final int MAGIC = 0x414C474A; // "ALGJ"
+
+	private static final int FORMAT = 2;
+
+	// Magic and format at the start of each segment
+	private static final int SEGMENT_HEADER = 8;
+
+	// Length and CRC ahead of each record's fields
+	private static final int RECORD_HEADER = 8;
+
+	// Records start at multiples of this, so recovery can find the next one
+	private static final int ALIGNMENT = 8;
+
+	// Fixed part of a record's fields: time, elapsed, points, room,
+	// question, correct, id length
+	private static final int FIXED_SIZE = 8 + 8 + 4 + 4 + 4 + 1 + 2;
+
+	private static final int MAX_ID_BYTES = 255;
+
+	/**
+	 * One recorded answer.
+	 *
+	 * @param timestampMillis when the answer was recorded (epoch milliseconds)
+	 * @param playerId        the player's id
+	 * @param room            the 1-based room number
+	 * @param question        the 0-based position of the question in the
+	 *                        room's question list, so answers to the same
+	 *                        question can be grouped across visits
+	 * @param elapsedNanos    how long the player took to answer
+	 * @param correct         whether the answer was correct
+	 * @param points          the points awarded
+	 */
+	public record AnswerEvent(long timestampMillis, String playerId, int room, int question,
+			long elapsedNanos, boolean correct, int points) {
+	}
+
+	private final Path directory;
+
+	private final long segmentSize;
+
+	private volatile Segment current;
+
+	// The segment before the last roll, forced once more by the next commit
+	private volatile Segment previous;
+
+	private final AtomicLong unsynced = new AtomicLong();
+
+	private final Thread committer;
+
+	private volatile boolean closed;
+
+	/**
+	 * A mapped segment file and the next free offset in it.
+	 */
+	private static final class Segment {
+		final long index;
+		final FileChannel channel;
+		final MappedByteBuffer buffer;
+		final AtomicLong position;
+
+		Segment(long index, FileChannel channel, MappedByteBuffer buffer, long position) {
+			this.index = index;
+			this.channel = channel;
+			this.buffer = buffer;
+			this.position = new AtomicLong(position);
+		}
+	}
+
+	/**
+	 * Opens (or creates) a journal in the given directory and resumes after
+	 * the last complete record.
+	 *
+	 * @param directory     the directory holding the segment files
+	 * @param segmentSize   the size of each segment file in bytes
+	 * @param commitMillis  how often dirty segments are forced to disk
+	 * @throws IOException if the directory or segment cannot be opened
+	 */
+	public GameJournal(Path directory, long segmentSize, long commitMillis) throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		Files.createDirectories(directory);
+
+		List<Path> segments = segments(directory);
+		if (segments.isEmpty()) {
+			this.current = openSegment(0);
+		} else {
+			Path last = segments.get(segments.size() - 1);
+			this.current = openSegment(indexOf(last));
+		}
+
+		this.committer = new Thread(() -> commitLoop(commitMillis), "game-journal-commit");
+		this.committer.setDaemon(true);
+		this.committer.start();
+	}
+
+	/**
+	 * Gets the journal configured by the {@code algotraz.journal} system
+	 * property.
+	 *
+	 * @return the global journal, or null if journaling is off
+	 */
+	public static GameJournal global() {
+		return Global.JOURNAL;
+	}
+
+	/**
+	 * Lazily opens the global journal on first use.
+	 */
+	private static final class Global {
+		static final GameJournal JOURNAL = open();
+
+		private static GameJournal open() {
+			String dir = System.getProperty("algotraz.journal");
+			if (dir == null || dir.isEmpty()) {
+				return null;
+			}
+			try {
+				GameJournal journal = new GameJournal(Paths.get(dir), DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_MILLIS);
+				Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "game-journal-close"));
+				return journal;
+			} catch (IOException e) {
+				System.err.println("Couldn't open game journal: " + e.getMessage());
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Appends an answer event. Does not wait for the disk; the record becomes
+	 * durable with the next group commit.
+	 *
+	 * @param playerId     the player's id
+	 * @param room         the 1-based room number
+	 * @param question     the 0-based position of the question in the room's
+	 *                     question list
+	 * @param elapsedNanos how long the player took to answer
+	 * @param correct      whether the answer was correct
+	 * @param points       the points awarded
+	 */
+	public void append(String playerId, int room, int question, long elapsedNanos, boolean correct,
+			int points) {
+		if (closed) return;
+
+		byte[] id = playerId.getBytes(StandardCharsets.UTF_8);
+		int idLength = Math.min(id.length, MAX_ID_BYTES);
+		int length = FIXED_SIZE + idLength;
+		int recordSize = align(RECORD_HEADER + length);
+
+		Segment segment = current;
+		long offset;
+		while ((offset = reserve(segment, recordSize)) < 0) {
+			segment = roll(segment);
+		}
+
+		MappedByteBuffer buffer = segment.buffer;
+		int at = (int) offset + RECORD_HEADER;
+		buffer.putLong(at, System.currentTimeMillis());
+		buffer.putLong(at + 8, elapsedNanos);
+		buffer.putInt(at + 16, points);
+		buffer.putInt(at + 20, room);
+		buffer.putInt(at + 24, question);
+		buffer.put(at + 28, (byte) (correct ? 1 : 0));
+		buffer.putShort(at + 29, (short) idLength);
+		buffer.put(at + 31, id, 0, idLength);
+		buffer.putInt((int) offset, length);
+		// CRC last: a record only counts once it matches
+		buffer.putInt((int) offset + 4, checksum(buffer, at, length));
+
+		unsynced.incrementAndGet();
+	}
+
+	/**
+	 * Forces every record appended so far to disk, without waiting for the
+	 * next group commit.
+	 */
+	public void sync() {
+		Segment segment = current;
+		unsynced.set(0);
+		Segment old = previous;
+		if (old != null) {
+			// Catches records that were still being copied when it rolled
+			old.buffer.force();
+			previous = null;
+		}
+		segment.buffer.force();
+	}
+
+	/**
+	 * Commits outstanding records and stops the commit thread.
+	 */
+	@Override
+	public void close() {
+		if (closed) return;
+		closed = true;
+		committer.interrupt();
+		sync();
+	}
+
+	/**
+	 * Reads every complete record in a journal directory, oldest first.
+	 *
+	 * @param directory the journal directory
+	 * @param consumer  receives each event
+	 * @throws IOException if a segment cannot be read
+	 */
+	public static void replay(Path directory, Consumer<AnswerEvent> consumer) throws IOException {
+		for (Path file : segments(directory)) {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				buffer.order(ByteOrder.BIG_ENDIAN);
+				if (hasHeader(buffer)) {
+					scan(buffer, consumer);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Walks the records of a segment, passing each complete one to the
+	 * consumer. Holes left by writers that never finished are skipped.
+	 *
+	 * @param consumer receives each event, or null to only find the end
+	 * @return the offset after the last complete record
+	 */
+	private static int scan(ByteBuffer buffer, Consumer<AnswerEvent> consumer) {
+		int end = SEGMENT_HEADER;
+		int offset = SEGMENT_HEADER;
+		while (offset + RECORD_HEADER + FIXED_SIZE <= buffer.limit()) {
+			int length = buffer.getInt(offset);
+			boolean sized = length >= FIXED_SIZE && length <= buffer.limit() - offset - RECORD_HEADER;
+			int at = offset + RECORD_HEADER;
+			if (!sized || buffer.getInt(offset + 4) != checksum(buffer, at, length)) {
+				// A hole or torn record; its length can't be trusted, so try
+				// every slot until a record checks out again
+				offset += ALIGNMENT;
+				continue;
+			}
+			if (consumer != null) {
+				byte[] id = new byte[buffer.getShort(at + 29)];
+				buffer.get(at + 31, id);
+				consumer.accept(new AnswerEvent(
+						buffer.getLong(at),
+						new String(id, StandardCharsets.UTF_8),
+						buffer.getInt(at + 20),
+						buffer.getInt(at + 24),
+						buffer.getLong(at + 8),
+						buffer.get(at + 28) != 0,
+						buffer.getInt(at + 16)));
+			}
+			offset += align(RECORD_HEADER + length);
+			end = offset;
+		}
+		return end;
+	}
+
+	private static boolean hasHeader(ByteBuffer buffer) {
+		return buffer.limit() >= SEGMENT_HEADER && buffer.getInt(0) == MAGIC && buffer.getInt(4) == FORMAT;
+	}
+
+	private static int checksum(ByteBuffer buffer, int at, int length) {
+		CRC32C crc = new CRC32C();
+		crc.update(buffer.slice(at, length));
+		return (int) crc.getValue();
+	}
+
+	private static int align(int size) {
+		return (size + ALIGNMENT - 1) & -ALIGNMENT;
+	}
+
+	/**
+	 * Reserves space for a record in a segment.
+	 *
+	 * @return the record's offset, or -1 if the segment is full
+	 */
+	private long reserve(Segment segment, int recordSize) {
+		while (true) {
+			long offset = segment.position.get();
+			if (offset + recordSize > segmentSize) {
+				return -1;
+			}
+			if (segment.position.compareAndSet(offset, offset + recordSize)) {
+				return offset;
+			}
+		}
+	}
+
+	/**
+	 * Starts a new segment once the given one is full. Only the first caller
+	 * for a full segment creates the next one.
+	 */
+	private synchronized Segment roll(Segment full) {
+		if (current != full) {
+			return current;
+		}
+		try {
+			Segment next = openSegment(full.index + 1);
+			current = next;
+			previous = full;
+			full.channel.close();
+			return next;
+		} catch (IOException e) {
+			throw new IllegalStateException("Couldn't start journal segment: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Opens a segment and resumes after its last complete record. A segment
+	 * written in an older format is left as it is and the next one is opened.
+	 */
+	private Segment openSegment(long index) throws IOException {
+		Path file = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		boolean fresh = channel.size() == 0;
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+
+		if (fresh || buffer.getInt(0) == 0) {
+			buffer.putInt(0, MAGIC).putInt(4, FORMAT);
+			return new Segment(index, channel, buffer, SEGMENT_HEADER);
+		}
+		if (!hasHeader(buffer)) {
+			channel.close();
+			return openSegment(index + 1);
+		}
+		return new Segment(index, channel, buffer, scan(buffer, null));
+	}
+
+	private void commitLoop(long commitMillis) {
+		while (!closed) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(commitMillis);
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (unsynced.get() > 0) {
+				sync();
+			}
+		}
+	}
+
+	private static List<Path> segments(Path directory) throws IOException {
+		List<Path> files = new ArrayList<>();
+		if (!Files.isDirectory(directory)) {
+			return files;
+		}
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+				SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+			stream.forEach(files::add);
+		}
+		Path[] sorted = files.toArray(new Path[0]);
+		Arrays.sort(sorted);
+		return Arrays.asList(sorted);
+	}
+
+	private static long indexOf(Path segment) {
+		String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+}
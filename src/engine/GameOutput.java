@@ -0,0 +1,53 @@
+package engine;
+
+/**
+ * The {@code GameOutput} interface is where an {@link Engine} writes its
+ * screens. The console, a blocking socket session and the non-blocking
+ * server each provide their own implementation.
+ *
+ * <p>
+ * Text passed to {@link #printContent(String)} is shared game content (room
+ * descriptions, questions, ASCII art) that never changes while the process
+ * runs, so implementations may cache its encoded form. Everything else goes
+ * through {@link #print(String)}.
+ *
+ * @version 1.0
+ */
+public interface GameOutput {
+
+	/**
+	 * Writes dynamic text such as scores, prompts and status lines.
+	 *
+	 * @param text the text to write
+	 */
+	void print(String text);
+
+	/**
+	 * Writes dynamic text followed by a line break.
+	 *
+	 * @param text the text to write
+	 */
+	default void println(String text) {
+		print(text);
+		print("\n");
+	}
+
+	/**
+	 * Writes shared, immutable game content. Defaults to {@link #print(String)}.
+	 *
+	 * @param content the content to write
+	 */
+	default void printContent(String content) {
+		print(content);
+	}
+
+	/**
+	 * Clears the player's screen.
+	 */
+	void clear();
+
+	/**
+	 * Sends everything written so far to the player.
+	 */
+	void flush();
+}
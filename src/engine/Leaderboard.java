@@ -0,0 +1,223 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The {@code Leaderboard} class ranks players by their best score. It is
+ * safe to update from thousands of finishing sessions at once and never
+ * takes a global lock:
+ *
+ * <ul>
+ * <li>each player's best entry lives in a concurrent map, updated by
+ * compare-and-set;</li>
+ * <li>entries are ordered in a concurrent skip list, so the top K are read in
+ * O(log n + K);</li>
+ * <li>a Fenwick tree of per-score counters over atomic longs answers "what
+ * is my rank" in O(log S), where S is the score range.</li>
+ * </ul>
+ *
+ * <p>
+ * Scores above the tracked range share the top bucket for rank queries.
+ * Reads run concurrently with updates, so a rank may briefly lag a score
+ * that is being replaced.
+ *
+ * @version 1.0
+ */
+public final class Leaderboard {
+
+	// Scores 0..65535 are ranked exactly; the game awards at most a few thousand
+	private static final int DEFAULT_SCORE_RANGE = 1 << 16;
+
+	private static final Comparator<Entry> ORDER = Comparator
+			.comparingInt(Entry::score).reversed()
+			.thenComparingLong(Entry::sequence);
+
+	// Declared after ORDER, which the constructor needs during class init
+	private static final Leaderboard GLOBAL = new Leaderboard(DEFAULT_SCORE_RANGE);
+
+	private final Map<String, Entry> best = new ConcurrentHashMap<>();
+
+	private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+
+	private final AtomicLongArray tree;
+
+	private final int scoreRange;
+
+	private final AtomicLong players = new AtomicLong();
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * A player's best score. Earlier entries rank first among equal scores.
+	 *
+	 * @param playerId   the player's id
+	 * @param playerName the player's name
+	 * @param score      the player's best score
+	 * @param sequence   the order in which the score was reached
+	 */
+	public record Entry(String playerId, String playerName, int score, long sequence) {
+	}
+
+	/**
+	 * Creates an empty leaderboard.
+	 *
+	 * @param scoreRange scores from 0 up to this value (exclusive) are ranked
+	 *                   exactly
+	 */
+	public Leaderboard(int scoreRange) {
+		this.scoreRange = scoreRange;
+		this.tree = new AtomicLongArray(scoreRange + 1);
+	}
+
+	/**
+	 * Gets the process-wide leaderboard that every finished game reports to.
+	 * Its entries are keyed by {@link #nameKey(String)}: player ids are new
+	 * for every connection, so a player's games are matched by name.
+	 *
+	 * @return the global leaderboard
+	 */
+	public static Leaderboard global() {
+		return GLOBAL;
+	}
+
+	/**
+	 * Gets the key a player's name is ranked under on the global leaderboard.
+	 *
+	 * @param playerName the player's name
+	 * @return the name, trimmed and lower-cased
+	 */
+	public static String nameKey(String playerName) {
+		return playerName.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Records a score. Keeps only the player's best score.
+	 *
+	 * @param playerId   the player's id
+	 * @param playerName the player's name
+	 * @param score      the score reached
+	 * @return the player's entry after the update
+	 */
+	public Entry submit(String playerId, String playerName, int score) {
+		while (true) {
+			Entry current = best.get(playerId);
+			if (current != null && current.score >= score) {
+				return current;
+			}
+			Entry next = new Entry(playerId, playerName, score, sequence.incrementAndGet());
+			boolean swapped = current == null
+					? best.putIfAbsent(playerId, next) == null
+					: best.replace(playerId, current, next);
+			if (!swapped) {
+				continue; // Another session for this player won the race
+			}
+
+			ranking.add(next);
+			count(score, 1);
+			if (best.get(playerId) != next) {
+				// Superseded before it was ranked; its remover may have run first
+				ranking.remove(next);
+			}
+			if (current == null) {
+				players.incrementAndGet();
+			} else {
+				ranking.remove(current);
+				count(current.score, -1);
+			}
+			return next;
+		}
+	}
+
+	/**
+	 * Gets a player's 1-based rank: one more than the number of players with
+	 * a strictly higher best score.
+	 *
+	 * @param playerId the player's id
+	 * @return the player's rank, or 0 if the player has no score
+	 */
+	public long rankOf(String playerId) {
+		Entry entry = best.get(playerId);
+		if (entry == null) {
+			return 0;
+		}
+		return 1 + countAbove(entry.score);
+	}
+
+	/**
+	 * Gets the rank a score would have.
+	 *
+	 * @param score the score
+	 * @return one more than the number of players with a higher score
+	 */
+	public long rankOfScore(int score) {
+		return 1 + countAbove(score);
+	}
+
+	/**
+	 * Gets a player's best entry.
+	 *
+	 * @param playerId the player's id
+	 * @return the entry, or null if the player has no score
+	 */
+	public Entry get(String playerId) {
+		return best.get(playerId);
+	}
+
+	/**
+	 * Gets the best entries in rank order.
+	 *
+	 * @param k the number of entries to return
+	 * @return up to {@code k} entries, best first
+	 */
+	public List<Entry> top(int k) {
+		List<Entry> top = new ArrayList<>(Math.min(k, 64));
+		Iterator<Entry> entries = ranking.iterator();
+		while (top.size() < k && entries.hasNext()) {
+			top.add(entries.next());
+		}
+		return top;
+	}
+
+	/**
+	 * Gets the number of ranked players.
+	 *
+	 * @return the player count
+	 */
+	public long size() {
+		return players.get();
+	}
+
+	private int bucket(int score) {
+		return Math.max(0, Math.min(score, scoreRange - 1));
+	}
+
+	private void count(int score, long delta) {
+		for (int i = bucket(score) + 1; i <= scoreRange; i += i & -i) {
+			tree.addAndGet(i, delta);
+		}
+	}
+
+	private long countAtMost(int score) {
+		long sum = 0;
+		for (int i = bucket(score) + 1; i > 0; i -= i & -i) {
+			sum += tree.get(i);
+		}
+		return sum;
+	}
+
+	private long countAbove(int score) {
+		if (score >= scoreRange - 1) {
+			return 0;
+		}
+		return Math.max(0, countAtMost(scoreRange - 1) - countAtMost(score));
+	}
+}
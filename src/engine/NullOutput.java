@@ -0,0 +1,36 @@
+package engine;
+
+/**
+ * The {@code NullOutput} class is a {@link GameOutput} that discards
+ * everything written to it. Used to drive games without rendering them,
+ * for example from scripts and benchmarks.
+ *
+ * @version 1.0
+ */
+public final class NullOutput implements GameOutput {
+
+	public static final NullOutput INSTANCE = new NullOutput();
+
+	private NullOutput() {
+	}
+
+	@Override
+	public void print(String text) {
+	}
+
+	@Override
+	public void println(String text) {
+	}
+
+	@Override
+	public void printContent(String content) {
+	}
+
+	@Override
+	public void clear() {
+	}
+
+	@Override
+	public void flush() {
+	}
+}
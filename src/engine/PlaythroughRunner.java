@@ -0,0 +1,429 @@
+package engine;
+
+import entities.Player;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code PlaythroughRunner} class replays scripted answers through the
+ * game without rendering it. Each script drives an {@link Engine} directly,
+ * one answer per prompted question, until the game is complete or the
+ * script runs out. Scripts run in parallel on a fixed pool of threads, so
+ * thousands of playthroughs take seconds.
+ *
+ * <p>
+ * Replays are repeatable: questions are taken in room order, time limits are
+ * off, and scoring uses each question's base weight instead of the live
+ * calibration. Answer times come from the script, not the wall clock.
+ *
+ * <p>
+ * Script format, one file for any number of players:
+ * <pre>
+ * # comment
+ * &#64; &lt;playerId&gt; &lt;player name&gt;
+ * &lt;answer&gt;
+ * &lt;answer&gt;&lt;TAB&gt;&lt;seconds taken&gt;
+ * </pre>
+ * Each answer line is submitted to the next question; blank lines are
+ * skipped and answers without a time count as instant. An answer line must
+ * not be empty before its time.
+ *
+ * <p>
+ * A script that fails while playing does not stop the others: its result
+ * holds what was played up to the failure and the error.
+ *
+ * <p>
+ * Usage: {@code java engine.PlaythroughRunner [--format csv|json]
+ * [--threads n] [--random] [--out file] <scriptFile>}.
+ *
+ * @version 1.0
+ */
+public final class PlaythroughRunner {
+
+	/**
+	 * One scripted answer.
+	 *
+	 * @param text         the answer as the player would type it
+	 * @param elapsedNanos how long the player takes to answer
+	 */
+	public record Answer(String text, long elapsedNanos) {
+	}
+
+	/**
+	 * One player's answers, in the order they are given.
+	 *
+	 * @param playerId   the player's id
+	 * @param playerName the player's name
+	 * @param answers    the answers
+	 */
+	public record Script(String playerId, String playerName, List<Answer> answers) {
+	}
+
+	/**
+	 * The outcome of one scripted playthrough.
+	 *
+	 * @param playerId     the player's id
+	 * @param playerName   the player's name
+	 * @param completed    whether the final room was finished
+	 * @param won          whether the score beat the points needed to win
+	 * @param score        the total score
+	 * @param roomPoints   the points scored in each room
+	 * @param room         the room the game ended in
+	 * @param answers      the answers submitted
+	 * @param correct      the correct answers
+	 * @param restarts     the times a room was started over
+	 * @param elapsedNanos the scripted time spent answering
+	 * @param unused       the answers left over after the game ended
+	 * @param error        why the playthrough stopped early, or null if it
+	 *                     did not fail
+	 */
+	public record Result(String playerId, String playerName, boolean completed, boolean won, int score,
+			int[] roomPoints, int room, int answers, int correct, int restarts, long elapsedNanos,
+			int unused, String error) {
+	}
+
+	private final GameContent content;
+
+	private final int threads;
+
+	private final boolean ordered;
+
+	/**
+	 * Creates a runner over the standard story that takes questions in room
+	 * order and uses one thread per processor.
+	 */
+	public PlaythroughRunner() {
+		this(GameContent.standard(), Runtime.getRuntime().availableProcessors(), true);
+	}
+
+	/**
+	 * Creates a runner.
+	 *
+	 * @param content the content every playthrough uses
+	 * @param threads the number of playthroughs run at once
+	 * @param ordered whether questions are taken in room order; if false they
+	 *                are drawn at random, as in a live game
+	 */
+	public PlaythroughRunner(GameContent content, int threads, boolean ordered) {
+		this.content = content;
+		this.threads = Math.max(1, threads);
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Plays one script on the calling thread.
+	 *
+	 * @param script the script
+	 * @return the playthrough's result
+	 */
+	public Result play(Script script) {
+		Engine engine = new Engine(new Player(script.playerId(), script.playerName()), NullOutput.INSTANCE,
+				content);
+		engine.setQuestionTimeLimit(0, TimeUnit.NANOSECONDS);
+		engine.setRoomTimeLimit(0, TimeUnit.NANOSECONDS);
+		engine.setOrderedQuestions(ordered);
+		engine.setCalibrated(false);
+
+		int restarts = 0;
+		long elapsed = 0;
+		int used = 0;
+		String error = null;
+		try {
+			for (Answer answer : script.answers()) {
+				if (engine.isGameComplete()) break;
+				int room = engine.getCurrentRoomNumber();
+				boolean lastQuestion = engine.getCurrentQuestionNumber() == engine.getQuestionsInRoom();
+
+				used++;
+				engine.submitAnswer(answer.text(), answer.elapsedNanos());
+				elapsed += answer.elapsedNanos();
+
+				// The last answer of a visit either moves on or starts the room over
+				if (lastQuestion && !engine.isGameComplete() && engine.getCurrentRoomNumber() == room) {
+					restarts++;
+				}
+			}
+		} catch (RuntimeException e) {
+			error = "Answer " + used + ": " + e;
+		}
+
+		int[] roomPoints = new int[content.getRooms().size()];
+		for (int i = 0; i < roomPoints.length; i++) {
+			roomPoints[i] = engine.getPlayerScore(i + 1);
+		}
+		SessionStats stats = engine.getStats();
+		return new Result(script.playerId(), script.playerName(), engine.isGameComplete(),
+				engine.isGameComplete() && engine.totalPlayerScore() > engine.getPointsToWin(),
+				engine.totalPlayerScore(), roomPoints, engine.getCurrentRoomNumber(), stats.getAnswerCount(),
+				stats.getCorrectCount(), restarts, elapsed, script.answers().size() - used, error);
+	}
+
+	/**
+	 * Makes the result of a script that failed before it could be played.
+	 */
+	private Result failed(Script script, Throwable cause) {
+		return new Result(script.playerId(), script.playerName(), false, false, 0,
+				new int[content.getRooms().size()], 0, 0, 0, 0, 0, script.answers().size(), String.valueOf(cause));
+	}
+
+	/**
+	 * Plays every script in parallel. A script that fails gets a result
+	 * with its error instead of stopping the others.
+	 *
+	 * @param scripts the scripts
+	 * @return the results, in the same order as the scripts
+	 * @throws InterruptedException if interrupted while waiting for results
+	 */
+	public List<Result> run(List<Script> scripts) throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, scripts.size())), r -> {
+			Thread thread = new Thread(r, "playthrough-runner");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Future<Result>> futures = new ArrayList<>(scripts.size());
+			for (Script script : scripts) {
+				futures.add(pool.submit(() -> play(script)));
+			}
+			List<Result> results = new ArrayList<>(scripts.size());
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					results.add(futures.get(i).get());
+				} catch (ExecutionException e) {
+					results.add(failed(scripts.get(i), e.getCause()));
+				}
+			}
+			return results;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads scripts in the format described above.
+	 *
+	 * @param reader the script source
+	 * @return the scripts, in file order
+	 * @throws IOException if the source cannot be read or is malformed
+	 */
+	public static List<Script> parse(Reader reader) throws IOException {
+		List<Script> scripts = new ArrayList<>();
+		BufferedReader lines = new BufferedReader(reader);
+		List<Answer> answers = null;
+		String line;
+		int number = 0;
+		while ((line = lines.readLine()) != null) {
+			number++;
+			String trimmed = line.trim();
+			if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+			if (trimmed.startsWith("@")) {
+				String[] header = trimmed.substring(1).trim().split("\\s+", 2);
+				if (header[0].isEmpty()) {
+					throw new IOException("Line " + number + ": missing player id");
+				}
+				answers = new ArrayList<>();
+				scripts.add(new Script(header[0], header.length > 1 ? header[1] : header[0], answers));
+				continue;
+			}
+			if (answers == null) {
+				throw new IOException("Line " + number + ": answer before the first '@' player line");
+			}
+			answers.add(answer(line, number));
+		}
+		return scripts;
+	}
+
+	private static Answer answer(String line, int number) throws IOException {
+		int tab = line.lastIndexOf('\t');
+		if (tab < 0) {
+			return new Answer(line.trim(), 0);
+		}
+		try {
+			double seconds = Double.parseDouble(line.substring(tab + 1).trim());
+			if (seconds < 0 || Double.isNaN(seconds)) {
+				throw new IOException("Line " + number + ": negative answer time");
+			}
+			String text = line.substring(0, tab).trim();
+			if (text.isEmpty()) {
+				throw new IOException("Line " + number + ": empty answer");
+			}
+			return new Answer(text, (long) (seconds * TimeUnit.SECONDS.toNanos(1)));
+		} catch (NumberFormatException e) {
+			// Not a time, so the tab belongs to the answer
+			return new Answer(line.trim(), 0);
+		}
+	}
+
+	/**
+	 * Writes results as CSV with a header row.
+	 *
+	 * @param results the results
+	 * @param out     the destination
+	 * @throws IOException if writing fails
+	 */
+	public static void writeCsv(List<Result> results, Writer out) throws IOException {
+		out.write("playerId,playerName,completed,won,score,roomPoints,room,answers,correct,restarts,"
+				+ "elapsedSeconds,unusedAnswers,error\n");
+		StringBuilder row = new StringBuilder();
+		for (Result result : results) {
+			row.setLength(0);
+			row.append(csv(result.playerId())).append(',').append(csv(result.playerName())).append(',')
+					.append(result.completed()).append(',').append(result.won()).append(',')
+					.append(result.score()).append(',');
+			for (int i = 0; i < result.roomPoints().length; i++) {
+				if (i > 0) row.append(';');
+				row.append(result.roomPoints()[i]);
+			}
+			row.append(',').append(result.room()).append(',').append(result.answers()).append(',')
+					.append(result.correct()).append(',').append(result.restarts()).append(',')
+					.append(seconds(result.elapsedNanos())).append(',').append(result.unused()).append(',')
+					.append(result.error() == null ? "" : csv(result.error())).append('\n');
+			out.write(row.toString());
+		}
+	}
+
+	/**
+	 * Writes results as a JSON array with one object per line.
+	 *
+	 * @param results the results
+	 * @param out     the destination
+	 * @throws IOException if writing fails
+	 */
+	public static void writeJson(List<Result> results, Writer out) throws IOException {
+		out.write("[\n");
+		StringBuilder row = new StringBuilder();
+		for (int r = 0; r < results.size(); r++) {
+			Result result = results.get(r);
+			row.setLength(0);
+			row.append("  {\"playerId\":").append(json(result.playerId()))
+					.append(",\"playerName\":").append(json(result.playerName()))
+					.append(",\"completed\":").append(result.completed())
+					.append(",\"won\":").append(result.won())
+					.append(",\"score\":").append(result.score())
+					.append(",\"roomPoints\":[");
+			for (int i = 0; i < result.roomPoints().length; i++) {
+				if (i > 0) row.append(',');
+				row.append(result.roomPoints()[i]);
+			}
+			row.append("],\"room\":").append(result.room())
+					.append(",\"answers\":").append(result.answers())
+					.append(",\"correct\":").append(result.correct())
+					.append(",\"restarts\":").append(result.restarts())
+					.append(",\"elapsedSeconds\":").append(seconds(result.elapsedNanos()))
+					.append(",\"unusedAnswers\":").append(result.unused())
+					.append(",\"error\":").append(result.error() == null ? "null" : json(result.error()))
+					.append(r + 1 < results.size() ? "},\n" : "}\n");
+			out.write(row.toString());
+		}
+		out.write("]\n");
+	}
+
+	private static String seconds(long nanos) {
+		return String.valueOf(nanos / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+	private static String csv(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static String json(String value) {
+		StringBuilder escaped = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"' -> escaped.append("\\\"");
+				case '\\' -> escaped.append("\\\\");
+				case '\n' -> escaped.append("\\n");
+				case '\r' -> escaped.append("\\r");
+				case '\t' -> escaped.append("\\t");
+				default -> {
+					if (c < 0x20) {
+						escaped.append(String.format("\\u%04x", (int) c));
+					} else {
+						escaped.append(c);
+					}
+				}
+			}
+		}
+		return escaped.append('"').toString();
+	}
+
+	/**
+	 * Replays a script file and prints the results.
+	 *
+	 * @param args {@code [--format csv|json] [--threads n] [--random]
+	 *             [--out file] <scriptFile>}; {@code -} reads standard input
+	 */
+	public static void main(String[] args) {
+		String format = "csv";
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean ordered = true;
+		String outFile = null;
+		String scriptFile = null;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+					case "--format" -> format = args[++i];
+					case "--threads" -> threads = Integer.parseInt(args[++i]);
+					case "--random" -> ordered = false;
+					case "--out" -> outFile = args[++i];
+					default -> scriptFile = args[i];
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+			scriptFile = null;
+		}
+		if (scriptFile == null || !(format.equals("csv") || format.equals("json"))) {
+			System.err.println("Usage: java engine.PlaythroughRunner [--format csv|json] [--threads n]"
+					+ " [--random] [--out file] <scriptFile>");
+			System.exit(2);
+		}
+
+		try (Reader in = scriptFile.equals("-")
+				? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+				: Files.newBufferedReader(Paths.get(scriptFile), StandardCharsets.UTF_8);
+				Writer out = outFile == null
+						? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+						: Files.newBufferedWriter(Paths.get(outFile), StandardCharsets.UTF_8)) {
+			List<Script> scripts = parse(in);
+			long start = System.nanoTime();
+			List<Result> results = new PlaythroughRunner(GameContent.standard(), threads, ordered).run(scripts);
+			long took = System.nanoTime() - start;
+
+			if (format.equals("json")) {
+				writeJson(results, out);
+			} else {
+				writeCsv(results, out);
+			}
+			out.flush();
+			long failed = results.stream().filter(result -> result.error() != null).count();
+			System.err.printf("Replayed %d scripts in %.3f s%s%n", results.size(), took / 1e9,
+					failed == 0 ? "" : ", " + failed + " failed");
+		} catch (IOException e) {
+			System.err.println("Couldn't replay scripts: " + e.getMessage());
+			System.exit(1);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
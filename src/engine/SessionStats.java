@@ -0,0 +1,201 @@
+package engine;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code SessionStats} class keeps the answer statistics of one game as
+ * running totals in primitive fields and arrays: answer count, total,
+ * minimum and maximum answer time, and per-room splits. Recording an answer
+ * and reading any summary value are O(1) and never allocate, so finished
+ * sessions can be kept around cheaply for analytics.
+ *
+ * @version 1.0
+ */
+public final class SessionStats {
+
+	private static final long ANSWER = 1L << 32;
+
+	private int answers;
+
+	private int correctAnswers;
+
+	private long totalNanos;
+
+	private long minNanos = Long.MAX_VALUE;
+
+	private long maxNanos;
+
+	// Two slots per room, in one array to keep sessions small: the answer
+	// count (high 32 bits) and correct count (low 32 bits), then total nanos
+	private final long[] rooms;
+
+	/**
+	 * Creates empty statistics for a game with the given number of rooms.
+	 *
+	 * @param roomCount the number of rooms in the game
+	 */
+	public SessionStats(int roomCount) {
+		this.rooms = new long[2 * roomCount];
+	}
+
+	/**
+	 * Records one answer.
+	 *
+	 * @param roomNumber   the 1-based room the question belongs to
+	 * @param elapsedNanos how long the player took to answer
+	 * @param correct      whether the answer was correct
+	 */
+	public void record(int roomNumber, long elapsedNanos, boolean correct) {
+		answers++;
+		totalNanos += elapsedNanos;
+		minNanos = Math.min(minNanos, elapsedNanos);
+		maxNanos = Math.max(maxNanos, elapsedNanos);
+
+		int room = 2 * (roomNumber - 1);
+		rooms[room] += ANSWER;
+		rooms[room + 1] += elapsedNanos;
+		if (correct) {
+			correctAnswers++;
+			rooms[room]++;
+		}
+	}
+
+	/**
+	 * Gets the number of answers recorded, including retries.
+	 *
+	 * @return the answer count
+	 */
+	public int getAnswerCount() {
+		return answers;
+	}
+
+	/**
+	 * Gets the number of correct answers recorded.
+	 *
+	 * @return the correct answer count
+	 */
+	public int getCorrectCount() {
+		return correctAnswers;
+	}
+
+	/**
+	 * Gets the total time spent answering.
+	 *
+	 * @return the total answer time in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * Gets the average time per answer.
+	 *
+	 * @return the average answer time in nanoseconds, or 0 if none
+	 */
+	public long getAverageNanos() {
+		return answers == 0 ? 0 : totalNanos / answers;
+	}
+
+	/**
+	 * Gets the fastest answer time.
+	 *
+	 * @return the minimum answer time in nanoseconds, or 0 if none
+	 */
+	public long getMinNanos() {
+		return answers == 0 ? 0 : minNanos;
+	}
+
+	/**
+	 * Gets the slowest answer time.
+	 *
+	 * @return the maximum answer time in nanoseconds
+	 */
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	/**
+	 * Gets the number of rooms tracked.
+	 *
+	 * @return the room count
+	 */
+	public int getRoomCount() {
+		return rooms.length / 2;
+	}
+
+	/**
+	 * Gets the number of answers given in a room.
+	 *
+	 * @param roomNumber the 1-based room number
+	 * @return the room's answer count
+	 */
+	public int getRoomAnswerCount(int roomNumber) {
+		return (int) (rooms[2 * (roomNumber - 1)] >>> 32);
+	}
+
+	/**
+	 * Gets the number of correct answers given in a room.
+	 *
+	 * @param roomNumber the 1-based room number
+	 * @return the room's correct answer count
+	 */
+	public int getRoomCorrectCount(int roomNumber) {
+		return (int) rooms[2 * (roomNumber - 1)];
+	}
+
+	/**
+	 * Gets the time spent answering in a room.
+	 *
+	 * @param roomNumber the 1-based room number
+	 * @return the room's total answer time in nanoseconds
+	 */
+	public long getRoomNanos(int roomNumber) {
+		return rooms[2 * (roomNumber - 1) + 1];
+	}
+
+	/**
+	 * Gets the number of bytes {@link #writeTo(ByteBuffer)} writes.
+	 *
+	 * @return the encoded size
+	 */
+	int encodedSize() {
+		return 4 + 4 + 8 + 8 + 8 + 1 + rooms.length * 8;
+	}
+
+	/**
+	 * Writes the statistics in binary form, for session snapshots.
+	 *
+	 * @param buffer the buffer to write to, at its position
+	 */
+	void writeTo(ByteBuffer buffer) {
+		buffer.putInt(answers).putInt(correctAnswers).putLong(totalNanos).putLong(minNanos).putLong(maxNanos);
+		buffer.put((byte) getRoomCount());
+		for (long value : rooms) {
+			buffer.putLong(value);
+		}
+	}
+
+	/**
+	 * Reads statistics written by {@link #writeTo(ByteBuffer)}.
+	 *
+	 * @param buffer the buffer to read from, at its position
+	 * @return the statistics
+	 */
+	static SessionStats readFrom(ByteBuffer buffer) {
+		int answers = buffer.getInt();
+		int correctAnswers = buffer.getInt();
+		long totalNanos = buffer.getLong();
+		long minNanos = buffer.getLong();
+		long maxNanos = buffer.getLong();
+		SessionStats stats = new SessionStats(buffer.get());
+		stats.answers = answers;
+		stats.correctAnswers = correctAnswers;
+		stats.totalNanos = totalNanos;
+		stats.minNanos = minNanos;
+		stats.maxNanos = maxNanos;
+		for (int i = 0; i < stats.rooms.length; i++) {
+			stats.rooms[i] = buffer.getLong();
+		}
+		return stats;
+	}
+}
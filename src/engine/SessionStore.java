@@ -0,0 +1,403 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code SessionStore} class keeps a compact binary snapshot of every
+ * game in progress, so players can pick up where they left off after the
+ * process restarts.
+ *
+ * <p>
+ * Snapshots live in one memory-mapped file of fixed-size slots, one slot per
+ * session. Saving overwrites only that session's slot, so it costs a few
+ * hundred bytes of memory copies and no system call. Each slot holds two
+ * copies written alternately, each with a sequence number and a CRC, so a
+ * save interrupted half way leaves the previous copy intact.
+ *
+ * <p>
+ * Writes to the mapping reach the file even if the process is killed, which
+ * is what a redeploy needs; {@link #close()} also forces them to disk. On
+ * startup, {@link #restoreAll()} scans the file once and decodes every
+ * snapshot.
+ *
+ * <p>
+ * Each game gets a random resume code when it is first saved. A returning
+ * player must give the code along with their name to claim the game, so
+ * nobody can take over a saved game by typing its player's name.
+ *
+ * <p>
+ * The global store is enabled by setting the {@code algotraz.sessions}
+ * system property to a file.
+ *
+ * @version 1.0
+ */
+public final class SessionStore implements AutoCloseable {
+
+	private static final int DEFAULT_CAPACITY = 1 << 16;
+
+	// Two copies of at most COPY_SIZE bytes each
+	private static final int COPY_SIZE = 512;
+
+	private static final int SLOT_SIZE = 2 * COPY_SIZE;
+
+	// Sequence, body length and CRC ahead of each copy's body
+	private static final int COPY_HEADER = 4 + 4 + 4;
+
+	private static final int MAX_BODY = COPY_SIZE - COPY_HEADER;
+
+	private static final byte FORMAT = 2;
+
+	// Random bytes in a resume code
+	private static final int TOKEN_BYTES = 5;
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	/**
+	 * The saved state of one game.
+	 *
+	 * @param slot       the slot the snapshot is stored in
+	 * @param sequence   the number of saves of this session so far
+	 * @param playerId   the player's id
+	 * @param playerName the player's name
+	 * @param token      the resume code the player claims the game with
+	 * @param room       the 1-based current room
+	 * @param question   the 1-based current question in the room
+	 * @param skill      the adaptive difficulty level
+	 * @param points     the points scored in each room
+	 * @param questions  the positions in the room of the questions drawn for
+	 *                   the current visit, -1 where none is drawn yet
+	 * @param stats      the session's answer statistics
+	 */
+	public record Snapshot(int slot, int sequence, String playerId, String playerName, String token,
+			int room, int question, int skill, int[] points, int[] questions, SessionStats stats) {
+	}
+
+	private final FileChannel channel;
+
+	private final MappedByteBuffer buffer;
+
+	private final int capacity;
+
+	// Slots below this have been handed out at some point
+	private final AtomicInteger highWater = new AtomicInteger();
+
+	private final Queue<Integer> free = new ConcurrentLinkedQueue<>();
+
+	// Restored and suspended snapshots waiting for their player, by name
+	private final Map<String, Deque<Snapshot>> restored = new ConcurrentHashMap<>();
+
+	/**
+	 * Opens (or creates) a session store file.
+	 *
+	 * @param file     the snapshot file
+	 * @param capacity the most sessions the file holds
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	public SessionStore(Path file, int capacity) throws IOException {
+		Path parent = file.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		this.capacity = capacity;
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * SLOT_SIZE);
+	}
+
+	/**
+	 * Gets the store configured by the {@code algotraz.sessions} system
+	 * property. Its snapshots are restored when it is first used.
+	 *
+	 * @return the global store, or null if snapshots are off
+	 */
+	public static SessionStore global() {
+		return Global.STORE;
+	}
+
+	/**
+	 * Lazily opens and restores the global store on first use.
+	 */
+	private static final class Global {
+		static final SessionStore STORE = open();
+
+		private static SessionStore open() {
+			String file = System.getProperty("algotraz.sessions");
+			if (file == null || file.isEmpty()) {
+				return null;
+			}
+			try {
+				SessionStore store = new SessionStore(Paths.get(file), DEFAULT_CAPACITY);
+				store.restoreAll();
+				Runtime.getRuntime().addShutdownHook(new Thread(store::close, "session-store-close"));
+				return store;
+			} catch (IOException e) {
+				System.err.println("Couldn't open session store: " + e.getMessage());
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Creates a new resume code.
+	 *
+	 * @return a random code to show the player
+	 */
+	static String newToken() {
+		byte[] bytes = new byte[TOKEN_BYTES];
+		RANDOM.nextBytes(bytes);
+		return HexFormat.of().formatHex(bytes);
+	}
+
+	/**
+	 * Reads every snapshot in the file and holds them for
+	 * {@link #claim(String, String)}. Empty slots are reused for new sessions.
+	 *
+	 * @return the restored snapshots
+	 */
+	public synchronized List<Snapshot> restoreAll() {
+		List<Snapshot> snapshots = new ArrayList<>();
+		int last = -1;
+		for (int slot = 0; slot < capacity; slot++) {
+			int base = slot * SLOT_SIZE;
+			// Unused slots are all zero; skip them without decoding
+			if (buffer.getInt(base) == 0 && buffer.getInt(base + COPY_SIZE) == 0) continue;
+			Snapshot snapshot = read(slot);
+			if (snapshot == null) continue;
+			snapshots.add(snapshot);
+			last = slot;
+		}
+
+		restored.clear();
+		free.clear();
+		boolean[] used = new boolean[last + 1];
+		for (Snapshot snapshot : snapshots) {
+			used[snapshot.slot] = true;
+			hold(snapshot);
+		}
+		for (int slot = 0; slot <= last; slot++) {
+			if (!used[slot]) free.add(slot);
+		}
+		highWater.set(last + 1);
+		return snapshots;
+	}
+
+	/**
+	 * Checks whether a saved game is waiting for a player, to decide whether
+	 * to ask for a resume code.
+	 *
+	 * @param playerName the player's name
+	 * @return true if a game saved under the name can be claimed
+	 */
+	public boolean hasSaved(String playerName) {
+		Deque<Snapshot> snapshots = restored.get(playerName);
+		return snapshots != null && !snapshots.isEmpty();
+	}
+
+	/**
+	 * Takes a restored snapshot for a returning player.
+	 *
+	 * @param playerName the player's name
+	 * @param token      the resume code the player was given
+	 * @return the game saved under the name and code, or null if none
+	 */
+	public Snapshot claim(String playerName, String token) {
+		Deque<Snapshot> snapshots = restored.get(playerName);
+		if (snapshots == null || token == null) return null;
+		byte[] given = token.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+		for (Snapshot snapshot : snapshots) {
+			if (MessageDigest.isEqual(given, snapshot.token.getBytes(StandardCharsets.UTF_8))
+					&& snapshots.remove(snapshot)) {
+				return snapshot;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Takes any restored snapshot saved under a name, without a resume code.
+	 * Only for the local console game, whose player owns the store file.
+	 *
+	 * @param playerName the player's name
+	 * @return a snapshot of one of the player's games, or null if none
+	 */
+	public Snapshot claimLocal(String playerName) {
+		Deque<Snapshot> snapshots = restored.get(playerName);
+		return snapshots == null ? null : snapshots.poll();
+	}
+
+	/**
+	 * Holds the snapshot of a suspended game for {@link #claim(String, String)}.
+	 *
+	 * @param snapshot the snapshot
+	 */
+	void hold(Snapshot snapshot) {
+		restored.computeIfAbsent(snapshot.playerName, n -> new ConcurrentLinkedDeque<>()).add(snapshot);
+	}
+
+	/**
+	 * Gets a slot for a new session.
+	 *
+	 * @return the slot, or -1 if the store is full
+	 */
+	int allocate() {
+		Integer slot = free.poll();
+		if (slot != null) {
+			return slot;
+		}
+		int next = highWater.getAndIncrement();
+		if (next >= capacity) {
+			highWater.decrementAndGet();
+			return -1;
+		}
+		return next;
+	}
+
+	/**
+	 * Saves a session's snapshot into its slot. Called only by the session
+	 * that owns the slot.
+	 *
+	 * @param snapshot the snapshot
+	 * @return true if it was saved; false if it is too large for a slot
+	 */
+	boolean save(Snapshot snapshot) {
+		byte[] id = snapshot.playerId.getBytes(StandardCharsets.UTF_8);
+		byte[] name = snapshot.playerName.getBytes(StandardCharsets.UTF_8);
+		byte[] token = snapshot.token.getBytes(StandardCharsets.UTF_8);
+		int length = 1 + 2 + id.length + 2 + name.length + 2 + token.length + 4 + 1 + snapshot.points.length * 4
+				+ 1 + snapshot.questions.length * 4 + snapshot.stats.encodedSize();
+		if (length > MAX_BODY || snapshot.points.length > 127 || snapshot.questions.length > 127) {
+			return false;
+		}
+
+		// Alternate copies so the other one survives a torn write
+		int copy = snapshot.slot * SLOT_SIZE + (snapshot.sequence & 1) * COPY_SIZE;
+		ByteBuffer body = buffer.slice(copy + COPY_HEADER, length);
+		body.put(FORMAT);
+		body.putShort((short) id.length).put(id);
+		body.putShort((short) name.length).put(name);
+		body.putShort((short) token.length).put(token);
+		body.put((byte) snapshot.room).put((byte) snapshot.question).put((byte) snapshot.skill).put((byte) 0);
+		body.put((byte) snapshot.points.length);
+		for (int points : snapshot.points) {
+			body.putInt(points);
+		}
+		body.put((byte) snapshot.questions.length);
+		for (int position : snapshot.questions) {
+			body.putInt(position);
+		}
+		snapshot.stats.writeTo(body);
+
+		CRC32 crc = new CRC32();
+		crc.update(body.flip());
+		buffer.putInt(copy + 8, (int) crc.getValue());
+		buffer.putInt(copy + 4, length);
+		// Sequence last: it decides which copy is newest
+		buffer.putInt(copy, snapshot.sequence);
+		return true;
+	}
+
+	/**
+	 * Erases a finished session's snapshot and frees its slot.
+	 *
+	 * @param slot the session's slot
+	 */
+	void remove(int slot) {
+		int base = slot * SLOT_SIZE;
+		buffer.putInt(base, 0);
+		buffer.putInt(base + COPY_SIZE, 0);
+		free.add(slot);
+	}
+
+	/**
+	 * Forces all snapshots to disk and closes the file.
+	 */
+	@Override
+	public synchronized void close() {
+		try {
+			buffer.force();
+			channel.close();
+		} catch (IOException e) {
+			System.err.println("Couldn't close session store: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads the newest valid copy in a slot.
+	 *
+	 * @return the snapshot, or null if neither copy is valid
+	 */
+	private Snapshot read(int slot) {
+		int base = slot * SLOT_SIZE;
+		int first = buffer.getInt(base);
+		int second = buffer.getInt(base + COPY_SIZE);
+		// Sequences start at 1, so 0 marks an empty or erased copy
+		boolean firstNewer = first != 0 && (second == 0 || first - second > 0);
+		Snapshot snapshot = decode(slot, firstNewer ? base : base + COPY_SIZE);
+		if (snapshot == null) {
+			// Fall back to the older copy if the newer one was torn
+			snapshot = decode(slot, firstNewer ? base + COPY_SIZE : base);
+		}
+		return snapshot;
+	}
+
+	private Snapshot decode(int slot, int copy) {
+		int sequence = buffer.getInt(copy);
+		int length = buffer.getInt(copy + 4);
+		if (sequence == 0 || length <= 0 || length > MAX_BODY) {
+			return null;
+		}
+		ByteBuffer body = buffer.slice(copy + COPY_HEADER, length);
+		CRC32 crc = new CRC32();
+		crc.update(body.duplicate());
+		if ((int) crc.getValue() != buffer.getInt(copy + 8) || body.get() != FORMAT) {
+			return null;
+		}
+
+		String playerId = string(body);
+		String playerName = string(body);
+		String token = string(body);
+		int room = body.get();
+		int question = body.get();
+		int skill = body.get();
+		body.get(); // Reserved
+		int[] points = new int[body.get()];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = body.getInt();
+		}
+		int[] questions = new int[body.get()];
+		for (int i = 0; i < questions.length; i++) {
+			questions[i] = body.getInt();
+		}
+		SessionStats stats = SessionStats.readFrom(body);
+		return new Snapshot(slot, sequence, playerId, playerName, token, room, question, skill, points, questions,
+				stats);
+	}
+
+	private static String string(ByteBuffer body) {
+		byte[] bytes = new byte[body.getShort()];
+		body.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,40 @@
+package engine;
+
+import java.io.PrintStream;
+
+/**
+ * The {@code StreamOutput} class writes game screens to a {@link PrintStream},
+ * such as {@code System.out} or a socket stream, and clears the screen with
+ * ANSI escape sequences.
+ *
+ * @version 1.0
+ */
+public class StreamOutput implements GameOutput {
+
+	private final PrintStream out;
+
+	/**
+	 * Creates an output that writes to the given stream.
+	 *
+	 * @param out the stream to write to
+	 */
+	public StreamOutput(PrintStream out) {
+		this.out = out;
+	}
+
+	@Override
+	public void print(String text) {
+		out.print(text);
+	}
+
+	@Override
+	public void clear() {
+		out.print("\033[H\033[2J");
+		out.flush();
+	}
+
+	@Override
+	public void flush() {
+		out.flush();
+	}
+}
@@ -0,0 +1,251 @@
+package engine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The {@code TerminalRenderer} class draws game screens on an ANSI terminal
+ * a frame at a time. Everything the engine prints between two flushes
+ * (banner, description, question, prompt, score lines) is collected in a
+ * reusable buffer, encoded into a reusable byte buffer and sent with one
+ * write and one flush, instead of a write per line.
+ *
+ * <p>
+ * Clearing the screen starts a new frame. Text printed before the clear is
+ * dropped, since the player would never see it. When the new screen starts
+ * with the same lines as the one on the terminal (a room started over shows
+ * the same banner and description), those lines are left in place. The
+ * cursor moves to the first line that differs, and only the rest is sent.
+ *
+ * <p>
+ * The renderer keeps a rough model of the terminal: it assumes the player
+ * types one line after each flush and that long lines wrap at the terminal's
+ * width. Once the screen may have scrolled, or holds text it cannot measure
+ * (escape sequences, tabs), it falls back to clearing and redrawing.
+ *
+ * <p>
+ * A renderer belongs to one game and is not thread-safe. Write errors are
+ * remembered, as {@link java.io.PrintStream} does, and later output is
+ * dropped.
+ *
+ * @version 1.0
+ */
+public class TerminalRenderer implements GameOutput {
+
+	/**
+	 * Terminal width assumed when none is given.
+	 */
+	public static final int DEFAULT_COLUMNS = 80;
+
+	/**
+	 * Terminal height assumed when none is given.
+	 */
+	public static final int DEFAULT_ROWS = 24;
+
+	private static final String CLEAR_SCREEN = "\033[H\033[2J";
+
+	private final OutputStream out;
+
+	private final int columns;
+
+	private final int rows;
+
+	// Text printed since the last flush
+	private final StringBuilder frame = new StringBuilder(4096);
+
+	// The frame being sent, with any cursor movement in front of it
+	private final StringBuilder pending = new StringBuilder(4096);
+
+	// Text drawn from the top of the screen up to the first wait for input
+	private final StringBuilder screen = new StringBuilder(4096);
+
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	private ByteBuffer bytes = ByteBuffer.allocate(4096);
+
+	// Whether the frame replaces the screen
+	private boolean newScreen;
+
+	// Whether the screen text is still shown from the top row
+	private boolean screenValid;
+
+	// Estimated cursor position, for telling when the screen scrolls
+	private int row;
+
+	private int column;
+
+	private boolean error;
+
+	/**
+	 * Creates a renderer for a terminal of the size given by the
+	 * {@code algotraz.terminalColumns} and {@code algotraz.terminalRows}
+	 * system properties, or the default size.
+	 *
+	 * @param out the stream the terminal reads
+	 */
+	public TerminalRenderer(OutputStream out) {
+		this(out, Integer.getInteger("algotraz.terminalColumns", DEFAULT_COLUMNS),
+				Integer.getInteger("algotraz.terminalRows", DEFAULT_ROWS));
+	}
+
+	/**
+	 * Creates a renderer for a terminal of the given size.
+	 *
+	 * @param out     the stream the terminal reads
+	 * @param columns the terminal's width in characters
+	 * @param rows    the terminal's height in lines
+	 */
+	public TerminalRenderer(OutputStream out, int columns, int rows) {
+		if (columns < 1 || rows < 2) {
+			throw new IllegalArgumentException("Terminal too small: " + columns + "x" + rows);
+		}
+		this.out = out;
+		this.columns = columns;
+		this.rows = rows;
+	}
+
+	@Override
+	public void print(String text) {
+		frame.append(text);
+	}
+
+	@Override
+	public void clear() {
+		frame.setLength(0);
+		newScreen = true;
+	}
+
+	@Override
+	public void flush() {
+		if (frame.length() == 0 && !newScreen) return;
+
+		pending.setLength(0);
+		if (newScreen) {
+			int kept = screenValid ? commonLines() : 0;
+			if (kept > 0) {
+				// Move below the unchanged lines and erase the rest
+				pending.append("\033[").append(rowsOf(frame, kept) + 1).append(";1H\033[J");
+			} else {
+				pending.append(CLEAR_SCREEN);
+			}
+			pending.append(frame, kept, frame.length());
+
+			screen.setLength(0);
+			screen.append(frame);
+			row = 0;
+			column = 0;
+			screenValid = advance(frame);
+		} else {
+			pending.append(frame);
+			screenValid &= advance(frame);
+		}
+		// The player's answer and its line break follow the flush
+		row++;
+		column = 0;
+		screenValid &= row < rows;
+
+		frame.setLength(0);
+		newScreen = false;
+		write(pending);
+	}
+
+	/**
+	 * Checks whether a write has failed.
+	 *
+	 * @return true once output could not be written
+	 */
+	public boolean checkError() {
+		return error;
+	}
+
+	/**
+	 * Gets how many characters of whole lines the new frame shares with the
+	 * start of the screen.
+	 */
+	private int commonLines() {
+		int length = Math.min(frame.length(), screen.length());
+		int kept = 0;
+		for (int i = 0; i < length; i++) {
+			char c = frame.charAt(i);
+			if (c != screen.charAt(i)) break;
+			if (c == '\n') {
+				kept = i + 1;
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * Counts the terminal rows the first {@code end} characters of the text
+	 * take, ending with a line break.
+	 */
+	private int rowsOf(CharSequence text, int end) {
+		int lines = 0;
+		int width = 0;
+		for (int i = 0; i < end; i++) {
+			if (text.charAt(i) == '\n') {
+				lines += Math.max(1, (width + columns - 1) / columns);
+				width = 0;
+			} else {
+				width++;
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Moves the estimated cursor over the text.
+	 *
+	 * @return false if the screen may have scrolled or the text cannot be
+	 *         measured
+	 */
+	private boolean advance(CharSequence text) {
+		boolean measurable = true;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\n') {
+				row++;
+				column = 0;
+			} else if (c < ' ') {
+				measurable = false;
+			} else if (++column > columns) {
+				row++;
+				column = 1;
+			}
+		}
+		return measurable && row < rows;
+	}
+
+	private void write(CharSequence text) {
+		if (error) return;
+		CharBuffer chars = CharBuffer.wrap(text);
+		bytes.clear();
+		encoder.reset();
+		while (encoder.encode(chars, bytes, true).isOverflow()) {
+			grow();
+		}
+		while (encoder.flush(bytes).isOverflow()) {
+			grow();
+		}
+		try {
+			out.write(bytes.array(), 0, bytes.position());
+			out.flush();
+		} catch (IOException e) {
+			error = true;
+		}
+	}
+
+	private void grow() {
+		ByteBuffer larger = ByteBuffer.allocate(bytes.capacity() * 2);
+		bytes.flip();
+		larger.put(bytes);
+		bytes = larger;
+	}
+}
@@ -0,0 +1,227 @@
+package engine;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code TimingWheel} class is a hashed timing wheel for the many short
+ * deadlines of live game sessions. Scheduling and cancelling a deadline are
+ * O(1), and one background thread advances the wheel once per tick, touching
+ * only the timeouts in the current slot. Expired tasks are handed to an
+ * executor, so a slow task never delays the wheel.
+ *
+ * <p>
+ * Deadlines fire with tick resolution (100 ms for the shared wheel), which
+ * is plenty for question and room time limits measured in seconds.
+ *
+ * @version 1.0
+ */
+public final class TimingWheel {
+
+	private static final TimingWheel SHARED = new TimingWheel(100, TimeUnit.MILLISECONDS, 512,
+			Executors.newFixedThreadPool(2, daemon("timing-wheel-task")));
+
+	private final long tickNanos;
+
+	private final Slot[] wheel;
+
+	private final int mask;
+
+	private final Executor executor;
+
+	private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+
+	private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+	private final long startNanos;
+
+	private long tick;
+
+	/**
+	 * Creates and starts a timing wheel.
+	 *
+	 * @param tickDuration how often the wheel advances
+	 * @param unit         the unit of {@code tickDuration}
+	 * @param slots        the number of slots, rounded up to a power of two
+	 * @param executor     runs expired tasks
+	 */
+	public TimingWheel(long tickDuration, TimeUnit unit, int slots, Executor executor) {
+		this.tickNanos = unit.toNanos(tickDuration);
+		int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+		this.wheel = new Slot[size];
+		for (int i = 0; i < size; i++) {
+			wheel[i] = new Slot();
+		}
+		this.mask = size - 1;
+		this.executor = executor;
+		this.startNanos = System.nanoTime();
+
+		Thread worker = daemon("timing-wheel").newThread(this::run);
+		worker.start();
+	}
+
+	/**
+	 * Gets the process-wide wheel shared by all game sessions.
+	 *
+	 * @return the shared timing wheel
+	 */
+	public static TimingWheel shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Schedules a task to run once the delay has passed.
+	 *
+	 * @param task  the task to run
+	 * @param delay the delay before running it
+	 * @param unit  the unit of {@code delay}
+	 * @return a handle that can cancel the task
+	 */
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+		Timeout timeout = new Timeout(this, task, System.nanoTime() - startNanos + unit.toNanos(delay));
+		added.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * A scheduled task. Cancelling is O(1) and safe from any thread.
+	 */
+	public static final class Timeout {
+		private static final int PENDING = 0;
+		private static final int CANCELLED = 1;
+		private static final int EXPIRED = 2;
+
+		private final TimingWheel wheel;
+		private final Runnable task;
+		private final long deadline;
+		private final AtomicInteger state = new AtomicInteger(PENDING);
+
+		// Owned by the wheel thread
+		private long rounds;
+		private Slot slot;
+		private Timeout prev;
+		private Timeout next;
+
+		private Timeout(TimingWheel wheel, Runnable task, long deadline) {
+			this.wheel = wheel;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Cancels the task if it has not run yet.
+		 *
+		 * @return true if this call cancelled the task
+		 */
+		public boolean cancel() {
+			if (!state.compareAndSet(PENDING, CANCELLED)) {
+				return false;
+			}
+			wheel.cancelled.add(this);
+			return true;
+		}
+
+		/**
+		 * Returns whether the task was cancelled.
+		 *
+		 * @return true if cancelled before it ran
+		 */
+		public boolean isCancelled() {
+			return state.get() == CANCELLED;
+		}
+	}
+
+	/**
+	 * A doubly linked list of the timeouts hashed to one slot.
+	 */
+	private static final class Slot {
+		private Timeout head;
+		private Timeout tail;
+
+		void add(Timeout timeout) {
+			timeout.slot = this;
+			if (head == null) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		void remove(Timeout timeout) {
+			if (timeout.prev != null) timeout.prev.next = timeout.next;
+			else head = timeout.next;
+			if (timeout.next != null) timeout.next.prev = timeout.prev;
+			else tail = timeout.prev;
+			timeout.prev = timeout.next = null;
+			timeout.slot = null;
+		}
+
+		void expire(Executor executor) {
+			Timeout timeout = head;
+			while (timeout != null) {
+				Timeout next = timeout.next;
+				if (timeout.rounds <= 0) {
+					remove(timeout);
+					if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+						executor.execute(timeout.task);
+					}
+				} else {
+					timeout.rounds--;
+				}
+				timeout = next;
+			}
+		}
+	}
+
+	private void run() {
+		while (true) {
+			long deadline = tickNanos * (tick + 1);
+			long sleep = deadline - (System.nanoTime() - startNanos);
+			if (sleep > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(sleep);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+			removeCancelled();
+			transferAdded();
+			wheel[(int) (tick & mask)].expire(executor);
+			tick++;
+		}
+	}
+
+	private void transferAdded() {
+		Timeout timeout;
+		while ((timeout = added.poll()) != null) {
+			if (timeout.state.get() != Timeout.PENDING) continue;
+			long expiryTick = Math.max(timeout.deadline / tickNanos, tick);
+			timeout.rounds = (expiryTick - tick) / wheel.length;
+			wheel[(int) (expiryTick & mask)].add(timeout);
+		}
+	}
+
+	private void removeCancelled() {
+		Timeout timeout;
+		while ((timeout = cancelled.poll()) != null) {
+			if (timeout.slot != null) {
+				timeout.slot.remove(timeout);
+			}
+		}
+	}
+
+	private static ThreadFactory daemon(String name) {
+		return task -> {
+			Thread thread = new Thread(task, name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
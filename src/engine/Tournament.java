@@ -0,0 +1,490 @@
+package engine;
+
+import entities.Question;
+import entities.Room;
+import entities.Timer;
+import metrics.Histogram;
+import metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code Tournament} class runs a timed competition in synchronized
+ * rounds: every participant gets the same room and question at the same
+ * moment, and has until the round's deadline to answer.
+ *
+ * <p>
+ * Each round goes through these steps:
+ * <ol>
+ * <li>The question is broadcast to every participant. Shared content goes
+ * through {@link GameOutput#printContent(String)}, so a server that caches
+ * encoded content writes the same bytes to every player.</li>
+ * <li>Answers arrive concurrently from whichever threads read them. Each is
+ * scored with {@link Engine#calculatePoints(int, long)} and the question's
+ * score weight. The time counted is from when the question was flushed to
+ * that player's output to when the server received the answer, so players
+ * late in the broadcast loop are not charged for the ones before them.</li>
+ * <li>The standings are updated after every answer, so they are always
+ * current.</li>
+ * <li>The round closes at its deadline, or as soon as everyone who was shown
+ * its question and is still taking part has answered. The standings are
+ * then published.</li>
+ * </ol>
+ * Deadlines run on the shared {@link TimingWheel}, and broadcasts are a loop
+ * on the thread that opens the round. There is no thread per player or per
+ * broadcast. Outputs must therefore not block, as the non-blocking server's
+ * connections don't.
+ *
+ * <p>
+ * Rooms are played in order with the same questions for everyone, and
+ * every room is played whatever the scores. Room thresholds do not apply.
+ *
+ * @version 1.0
+ */
+public final class Tournament {
+
+	// Pause between rounds so players can read the standings
+	private static final long BREAK_NANOS = TimeUnit.SECONDS.toNanos(3);
+
+	private static final int STANDINGS_SHOWN = 5;
+
+	private static final Histogram BROADCAST_TIME = Metrics.global().histogram("tournament.broadcast");
+
+	private final List<Round> rounds;
+
+	private final long roundNanos;
+
+	private final TimingWheel wheel;
+
+	private final Map<String, Participant> participants = new ConcurrentHashMap<>();
+
+	private final List<Observer> observers = new CopyOnWriteArrayList<>();
+
+	private final Leaderboard standings = new Leaderboard(1 << 16);
+
+	private final AtomicBoolean started = new AtomicBoolean();
+
+	// Number of the open round; 0 before the first and after the last
+	private volatile int open;
+
+	// Highest round that has been closed
+	private final AtomicInteger closed = new AtomicInteger();
+
+	// Guards the counts below, which decide when the open round can close early
+	private final Object counts = new Object();
+
+	// Participants still here who were shown the open round's question
+	private int eligible;
+
+	// How many of them answered it
+	private int answered;
+
+	// Whether the open round's question is still being sent out
+	private boolean broadcasting;
+
+	private volatile long roundStartNanos;
+
+	private volatile boolean finished;
+
+	/**
+	 * One question of the tournament.
+	 *
+	 * @param number   the round's 1-based number
+	 * @param room     the room the question is from
+	 * @param question the question everyone answers
+	 */
+	public record Round(int number, Room room, Question question) {
+	}
+
+	/**
+	 * An output watching the tournament.
+	 */
+	private record Observer(GameOutput out, Runnable onFinish) {
+	}
+
+	/**
+	 * A player taking part. Writes to the player's output are serialized on
+	 * this object, since broadcasts and answers arrive on different threads.
+	 */
+	public static final class Participant {
+		private final String playerId;
+		private final String playerName;
+		private final GameOutput out;
+		private final Runnable onFinish;
+		private final int firstRound;
+		private final AtomicInteger score = new AtomicInteger();
+		// Last round answered, so each round counts one answer
+		private final AtomicInteger answeredRound = new AtomicInteger();
+		// Last round shown to the player and when its question was flushed,
+		// the last round whose answer was counted, and whether the player
+		// left; guarded by the participant
+		private int shownRound;
+		private long shownNanos;
+		private int countedRound;
+		private boolean left;
+
+		private Participant(String playerId, String playerName, GameOutput out, Runnable onFinish,
+				int firstRound) {
+			this.playerId = playerId;
+			this.playerName = playerName;
+			this.out = out;
+			this.onFinish = onFinish;
+			this.firstRound = firstRound;
+		}
+
+		/**
+		 * Gets the player's id.
+		 *
+		 * @return the id
+		 */
+		public String getPlayerId() {
+			return playerId;
+		}
+
+		/**
+		 * Gets the player's score so far.
+		 *
+		 * @return the score
+		 */
+		public int getScore() {
+			return score.get();
+		}
+
+		private synchronized void send(String text) {
+			out.print(text);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Creates a tournament over the given rooms, drawing the questions now.
+	 *
+	 * @param content          the rooms to play
+	 * @param questionsPerRoom questions asked in each room
+	 * @param roundTime        time allowed for each answer
+	 * @param unit             the unit of {@code roundTime}
+	 */
+	public Tournament(GameContent content, int questionsPerRoom, long roundTime, TimeUnit unit) {
+		this.roundNanos = unit.toNanos(roundTime);
+		this.wheel = TimingWheel.shared();
+		List<Round> drawn = new ArrayList<>();
+		for (Room room : content.getRooms()) {
+			List<Question> questions = new ArrayList<>(room.getQuestions());
+			Collections.shuffle(questions, ThreadLocalRandom.current());
+			for (Question question : questions.subList(0, Math.min(questionsPerRoom, questions.size()))) {
+				drawn.add(new Round(drawn.size() + 1, room, question));
+			}
+		}
+		if (drawn.isEmpty()) {
+			throw new IllegalArgumentException("No questions to play");
+		}
+		this.rounds = List.copyOf(drawn);
+	}
+
+	/**
+	 * Adds a player. Players joining after the start play from the next
+	 * round.
+	 *
+	 * @param playerId   the player's id
+	 * @param playerName the player's name
+	 * @param out        the player's output; must not block
+	 * @param onFinish   run once the final standings were sent to the player
+	 * @return the participant, to submit answers as
+	 */
+	public Participant join(String playerId, String playerName, GameOutput out, Runnable onFinish) {
+		Participant participant = new Participant(playerId, playerName, out, onFinish, open + 1);
+		participants.put(playerId, participant);
+		standings.submit(playerId, playerName, 0);
+		participant.send(started.get()
+				? "Joined the tournament in progress. Wait for the next question.\n"
+				: "Joined the tournament. " + participants.size() + " players waiting.\n");
+		return participant;
+	}
+
+	/**
+	 * Adds an output that is shown every question and the standings without
+	 * taking part, such as a spectator channel. Writes to it are serialized
+	 * on the output.
+	 *
+	 * @param out      the output; must not block
+	 * @param onFinish run once the final standings were sent to it
+	 */
+	public void observe(GameOutput out, Runnable onFinish) {
+		observers.add(new Observer(out, onFinish));
+	}
+
+	/**
+	 * Removes a player, for example when they disconnect. Their score stays
+	 * in the standings. The open round no longer waits for them, and an
+	 * answer they already gave no longer counts towards closing it.
+	 *
+	 * @param participant the player leaving
+	 */
+	public void leave(Participant participant) {
+		participants.remove(participant.playerId, participant);
+		int round;
+		boolean close;
+		synchronized (participant) {
+			if (participant.left) return;
+			participant.left = true;
+			synchronized (counts) {
+				round = open;
+				if (round == 0 || participant.shownRound != round) return;
+				eligible--;
+				if (participant.countedRound == round) {
+					answered--;
+				}
+				close = !broadcasting && answered >= eligible;
+			}
+		}
+		if (close) {
+			closeRound(round);
+		}
+	}
+
+	/**
+	 * Gets the number of players taking part.
+	 *
+	 * @return the player count
+	 */
+	public int size() {
+		return participants.size();
+	}
+
+	/**
+	 * Gets the live standings, ranked by total score. Ties go to whoever
+	 * reached the score first.
+	 *
+	 * @return the standings
+	 */
+	public Leaderboard getStandings() {
+		return standings;
+	}
+
+	/**
+	 * Gets the rounds in play order.
+	 *
+	 * @return the rounds
+	 */
+	public List<Round> getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * Returns whether the tournament has started.
+	 *
+	 * @return true once {@link #start()} was called
+	 */
+	public boolean isStarted() {
+		return started.get();
+	}
+
+	/**
+	 * Returns whether the last round was played.
+	 *
+	 * @return true once the final standings were sent
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Opens the first round. Only the first call has any effect.
+	 *
+	 * @return true if this call started the tournament
+	 */
+	public boolean start() {
+		if (!started.compareAndSet(false, true)) {
+			return false;
+		}
+		openRound(1);
+		return true;
+	}
+
+	/**
+	 * Scores a player's answer to the open round. Only the first answer of
+	 * each round counts, and only if it was received before the deadline.
+	 *
+	 * @param participant   the player answering
+	 * @param answer        the trimmed answer
+	 * @param receivedNanos when the server received the answer, from
+	 *                      {@link System#nanoTime()}
+	 */
+	public void submit(Participant participant, String answer, long receivedNanos) {
+		int round = open;
+		long shownNanos;
+		synchronized (participant) {
+			shownNanos = participant.shownRound == round ? participant.shownNanos : Long.MAX_VALUE;
+		}
+		// Answers read before the player was sent the question belong to no round
+		if (round == 0 || closed.get() >= round || round < participant.firstRound
+				|| receivedNanos < shownNanos) {
+			participant.send("No question is open. Wait for the next one.\n");
+			return;
+		}
+		if (participant.answeredRound.getAndSet(round) == round) {
+			participant.send("You already answered this question.\n");
+			return;
+		}
+		if (receivedNanos - roundStartNanos > roundNanos) {
+			participant.send("Too late!\n");
+			return;
+		}
+		long elapsed = receivedNanos - shownNanos;
+
+		Question question = rounds.get(round - 1).question();
+		boolean correct;
+		try {
+			correct = question.checkPlayerAnswer(answer);
+		} catch (RuntimeException e) {
+			// A broken answer check scores nothing, but still counts as an answer
+			System.err.println("Couldn't check tournament answer: " + e);
+			correct = false;
+		}
+		int points = correct ? Engine.calculatePoints(question.getScoreWeight(), elapsed) : 0;
+		int score = participant.score.addAndGet(points);
+		if (points > 0) {
+			standings.submit(participant.playerId, participant.playerName, score);
+		}
+		participant.send((correct ? "Correct!" : "Incorrect.") + " Points: " + points
+				+ "\nWaiting for the other players...\n");
+
+		boolean close;
+		synchronized (participant) {
+			synchronized (counts) {
+				// Players who left, or answers that outlived their round, don't count
+				if (participant.left || open != round || participant.shownRound != round) return;
+				participant.countedRound = round;
+				answered++;
+				close = !broadcasting && answered >= eligible;
+			}
+		}
+		if (close) {
+			closeRound(round);
+		}
+	}
+
+	/**
+	 * Broadcasts a round's question and arms its deadline.
+	 */
+	private void openRound(int number) {
+		Round round = rounds.get(number - 1);
+		boolean newRoom = number == 1 || rounds.get(number - 2).room() != round.room();
+		String header = "Round " + number + " of " + rounds.size() + " (" + roundNanos / Timer.NANOS_PER_SECOND
+				+ " seconds)\n";
+
+		synchronized (counts) {
+			eligible = 0;
+			answered = 0;
+			broadcasting = true;
+			roundStartNanos = System.nanoTime();
+			open = number;
+		}
+		for (Participant participant : participants.values()) {
+			synchronized (participant) {
+				if (participant.left) continue;
+				showQuestion(participant.out, round, newRoom, header);
+				participant.shownRound = number;
+				participant.shownNanos = System.nanoTime();
+				synchronized (counts) {
+					eligible++;
+				}
+			}
+		}
+		boolean close;
+		synchronized (counts) {
+			broadcasting = false;
+			close = eligible > 0 && answered >= eligible;
+		}
+		for (Observer observer : observers) {
+			synchronized (observer.out()) {
+				showQuestion(observer.out(), round, newRoom, header);
+			}
+		}
+		BROADCAST_TIME.recordSince(roundStartNanos);
+		wheel.schedule(() -> closeRound(number), roundNanos, TimeUnit.NANOSECONDS);
+		if (close) {
+			// Everyone answered while the question was still going out
+			closeRound(number);
+		}
+	}
+
+	private static void showQuestion(GameOutput out, Round round, boolean newRoom, String header) {
+		if (newRoom) {
+			out.clear();
+			out.println("\n\n=== Entering Room " + round.room().getRoomNumber() + " ===\n");
+			out.printContent(round.room().getDescription());
+			out.print("\n\n");
+		}
+		out.print(header);
+		out.printContent(round.question().getQuestion());
+		out.print("\n");
+		out.printContent("Your answer: ");
+		out.flush();
+	}
+
+	/**
+	 * Closes a round once, publishes the standings and schedules the next
+	 * round or the end.
+	 */
+	private void closeRound(int number) {
+		if (!closed.compareAndSet(number - 1, number)) return;
+		boolean last = number == rounds.size();
+		if (last) {
+			open = 0;
+		}
+
+		String top = formatTop();
+		String next = last ? "Tournament over! Final standings above.\n"
+				: "Next question in " + BREAK_NANOS / Timer.NANOS_PER_SECOND + " seconds.\n";
+		for (Participant participant : participants.values()) {
+			synchronized (participant) {
+				GameOutput out = participant.out;
+				out.print("\n" + (participant.answeredRound.get() == number ? "" : "Time's up!\n"));
+				out.print(top);
+				out.print("Your rank: " + standings.rankOf(participant.playerId) + " of " + standings.size()
+						+ " with " + participant.score.get() + " points\n\n");
+				out.print(next);
+				out.flush();
+				if (last) {
+					participant.onFinish.run();
+				}
+			}
+		}
+		for (Observer observer : observers) {
+			synchronized (observer.out()) {
+				GameOutput out = observer.out();
+				out.print("\n" + top + "\n" + next);
+				out.flush();
+				if (last) {
+					observer.onFinish().run();
+				}
+			}
+		}
+
+		if (last) {
+			finished = true;
+		} else {
+			wheel.schedule(() -> openRound(number + 1), BREAK_NANOS, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private String formatTop() {
+		StringBuilder top = new StringBuilder("Standings:\n");
+		int rank = 1;
+		for (Leaderboard.Entry entry : standings.top(STANDINGS_SHOWN)) {
+			top.append(rank++).append(". ").append(entry.playerName()).append(" - ").append(entry.score())
+					.append('\n');
+		}
+		return top.toString();
+	}
+}
@@ -0,0 +1,871 @@
+package entities;
+
+import metrics.Counter;
+import metrics.GameEvents;
+import metrics.Metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewArrayTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+
+/**
+ * Class: CodeGrader
+ * @version 1.0
+ * Written: 10/17/2026
+ *
+ * Purpose: Grades one-liner Java expressions for a {@link CodeQuestion} by
+ * compiling them in memory and comparing their results with the reference
+ * answer on every test input. The reference answer is compiled once per
+ * question and its expected outputs are kept, and verdicts for recently seen
+ * submissions are cached, so repeated grading costs a map lookup.
+ *
+ * Submissions are sandboxed: the compiled class may only reference a small
+ * set of side-effect free {@code java.lang} types (checked on the bytecode
+ * before it is loaded), and the parsed submission must be a single return
+ * statement that creates no arrays and only calls library methods from an
+ * allow-list whose cost is bounded by their arguments. Formatting, regular
+ * expressions and sized allocations such as {@code String.repeat} are not
+ * on it, and neither is the submission's own method. Test inputs are
+ * split across a bounded worker pool sized to the available cores; the first
+ * failing input stops the other workers, and each submission has a
+ * wall-clock, a CPU time and an allocation budget. The class is initialized
+ * and instantiated on the workers, inside those budgets.
+ *
+ * A submission that runs out of wall-clock time is graded wrong. If its
+ * code was still running at the deadline, that verdict is cached like any
+ * other, so a repeat is not run again; if it was only waiting for a busy
+ * worker, it is not. Workers cannot be interrupted out of running code, so
+ * when one is still busy after its deadline the pool is replaced: queued
+ * work moves to a fresh pool and the old threads exit once they finish.
+ * While {@value #MAX_OVERDUE_WORKERS} such workers are still running, new
+ * submissions are refused instead of graded.
+ */
+final class CodeGrader {
+
+	// Wall-clock budget for running one submission against all test inputs
+	private static final long WALL_LIMIT_MILLIS = 5000;
+
+	// CPU time budget for one submission, summed over all workers
+	private static final long CPU_LIMIT_NANOS = 1_000_000_000L;
+
+	// Bytes one submission may allocate, summed over all workers
+	private static final long ALLOCATION_LIMIT_BYTES = 64L * 1024 * 1024;
+
+	/*
+	 * Library methods a submission may call, as "type.name" for every
+	 * overload or "type.name(parameters)" for one. Each does work bounded by
+	 * the size of its arguments; anything that formats, matches patterns or
+	 * allocates as much as an argument asks for is left out.
+	 */
+	private static final Set<String> ALLOWED_METHODS = Set.of(
+			"java.lang.Object.equals", "java.lang.Object.hashCode", "java.lang.Object.toString",
+			// Integer and Long
+			"java.lang.Integer.bitCount", "java.lang.Integer.compare", "java.lang.Integer.compareTo",
+			"java.lang.Integer.compareUnsigned", "java.lang.Integer.divideUnsigned", "java.lang.Integer.equals",
+			"java.lang.Integer.hashCode", "java.lang.Integer.highestOneBit", "java.lang.Integer.intValue",
+			"java.lang.Integer.longValue", "java.lang.Integer.doubleValue", "java.lang.Integer.lowestOneBit",
+			"java.lang.Integer.max", "java.lang.Integer.min", "java.lang.Integer.numberOfLeadingZeros",
+			"java.lang.Integer.numberOfTrailingZeros", "java.lang.Integer.parseInt",
+			"java.lang.Integer.remainderUnsigned", "java.lang.Integer.reverse", "java.lang.Integer.reverseBytes",
+			"java.lang.Integer.rotateLeft", "java.lang.Integer.rotateRight", "java.lang.Integer.signum",
+			"java.lang.Integer.sum", "java.lang.Integer.toBinaryString", "java.lang.Integer.toHexString",
+			"java.lang.Integer.toOctalString", "java.lang.Integer.toString", "java.lang.Integer.toUnsignedLong",
+			"java.lang.Integer.toUnsignedString", "java.lang.Integer.valueOf",
+			"java.lang.Long.bitCount", "java.lang.Long.compare", "java.lang.Long.compareTo",
+			"java.lang.Long.compareUnsigned", "java.lang.Long.divideUnsigned", "java.lang.Long.equals",
+			"java.lang.Long.hashCode", "java.lang.Long.highestOneBit", "java.lang.Long.intValue",
+			"java.lang.Long.longValue", "java.lang.Long.doubleValue", "java.lang.Long.lowestOneBit",
+			"java.lang.Long.max", "java.lang.Long.min", "java.lang.Long.numberOfLeadingZeros",
+			"java.lang.Long.numberOfTrailingZeros", "java.lang.Long.parseLong", "java.lang.Long.remainderUnsigned",
+			"java.lang.Long.reverse", "java.lang.Long.reverseBytes", "java.lang.Long.rotateLeft",
+			"java.lang.Long.rotateRight", "java.lang.Long.signum", "java.lang.Long.sum",
+			"java.lang.Long.toBinaryString", "java.lang.Long.toHexString", "java.lang.Long.toOctalString",
+			"java.lang.Long.toString", "java.lang.Long.toUnsignedString", "java.lang.Long.valueOf",
+			// Other boxes
+			"java.lang.Short.toString", "java.lang.Short.valueOf", "java.lang.Short.toUnsignedInt",
+			"java.lang.Byte.toString", "java.lang.Byte.valueOf", "java.lang.Byte.toUnsignedInt",
+			"java.lang.Boolean.booleanValue", "java.lang.Boolean.compare", "java.lang.Boolean.logicalAnd",
+			"java.lang.Boolean.logicalOr", "java.lang.Boolean.logicalXor", "java.lang.Boolean.parseBoolean",
+			"java.lang.Boolean.toString", "java.lang.Boolean.valueOf",
+			"java.lang.Double.compare", "java.lang.Double.doubleValue", "java.lang.Double.intValue",
+			"java.lang.Double.isFinite", "java.lang.Double.isInfinite", "java.lang.Double.isNaN",
+			"java.lang.Double.longValue", "java.lang.Double.toString", "java.lang.Double.valueOf",
+			"java.lang.Float.compare", "java.lang.Float.floatValue", "java.lang.Float.intValue",
+			"java.lang.Float.isNaN", "java.lang.Float.toString", "java.lang.Float.valueOf",
+			"java.lang.Character.charValue", "java.lang.Character.digit", "java.lang.Character.forDigit",
+			"java.lang.Character.getNumericValue", "java.lang.Character.isDigit", "java.lang.Character.isLetter",
+			"java.lang.Character.isLetterOrDigit", "java.lang.Character.isLowerCase",
+			"java.lang.Character.isUpperCase", "java.lang.Character.isWhitespace",
+			"java.lang.Character.toLowerCase", "java.lang.Character.toString", "java.lang.Character.toUpperCase",
+			"java.lang.Character.valueOf",
+			// Math
+			"java.lang.Math.abs", "java.lang.Math.addExact", "java.lang.Math.cbrt", "java.lang.Math.ceil",
+			"java.lang.Math.floor", "java.lang.Math.floorDiv", "java.lang.Math.floorMod", "java.lang.Math.hypot",
+			"java.lang.Math.log", "java.lang.Math.log10", "java.lang.Math.max", "java.lang.Math.min",
+			"java.lang.Math.multiplyExact", "java.lang.Math.negateExact", "java.lang.Math.pow",
+			"java.lang.Math.round", "java.lang.Math.signum", "java.lang.Math.sqrt", "java.lang.Math.subtractExact",
+			"java.lang.Math.toIntExact",
+			"java.lang.StrictMath.abs", "java.lang.StrictMath.max", "java.lang.StrictMath.min",
+			"java.lang.StrictMath.pow", "java.lang.StrictMath.sqrt",
+			// Strings
+			"java.lang.String.charAt", "java.lang.String.compareTo", "java.lang.String.compareToIgnoreCase",
+			"java.lang.String.concat", "java.lang.String.contains", "java.lang.String.endsWith",
+			"java.lang.String.equals", "java.lang.String.equalsIgnoreCase", "java.lang.String.hashCode",
+			"java.lang.String.indexOf", "java.lang.String.isBlank", "java.lang.String.isEmpty",
+			"java.lang.String.lastIndexOf", "java.lang.String.length", "java.lang.String.replace",
+			"java.lang.String.startsWith", "java.lang.String.strip", "java.lang.String.substring",
+			"java.lang.String.toLowerCase", "java.lang.String.toString", "java.lang.String.toUpperCase",
+			"java.lang.String.trim", "java.lang.String.valueOf",
+			"java.lang.StringBuilder.<init>()", "java.lang.StringBuilder.<init>(java.lang.String)",
+			"java.lang.StringBuilder.<init>(java.lang.CharSequence)", "java.lang.StringBuilder.append",
+			"java.lang.StringBuilder.charAt", "java.lang.StringBuilder.deleteCharAt",
+			"java.lang.StringBuilder.indexOf", "java.lang.StringBuilder.insert", "java.lang.StringBuilder.length",
+			"java.lang.StringBuilder.reverse", "java.lang.StringBuilder.toString",
+			"java.lang.CharSequence.charAt", "java.lang.CharSequence.length", "java.lang.CharSequence.toString");
+
+	// Workers still running past their deadline before grading is refused
+	private static final int MAX_OVERDUE_WORKERS = 2 * Runtime.getRuntime().availableProcessors();
+
+	// Fewest test inputs worth handing to a separate worker
+	private static final int MIN_INPUTS_PER_TASK = 4;
+
+	private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+	// Submissions whose verdicts are remembered per question
+	private static final int VERDICT_CACHE_SIZE = 256;
+
+	// Types a compiled submission may reference
+	private static final Set<String> ALLOWED_TYPES = Set.of(
+			"java/lang/Object", "java/lang/Number", "java/lang/String", "java/lang/StringBuilder",
+			"java/lang/CharSequence", "java/lang/Integer", "java/lang/Long", "java/lang/Short",
+			"java/lang/Byte", "java/lang/Character", "java/lang/Boolean", "java/lang/Double",
+			"java/lang/Float", "java/lang/Math", "java/lang/StrictMath", "java/util/function/IntFunction");
+
+	private static final List<String> OPTIONS = List.of(
+			"-proc:none", "-g:none", "-XDstringConcat=inline");
+
+	private static final JavaCompiler COMPILER = ToolProvider.getSystemJavaCompiler();
+
+	// Idle file managers; each is used by one compilation at a time
+	private static final Deque<StandardJavaFileManager> FILES = new ConcurrentLinkedDeque<>();
+
+	private static final AtomicLong CLASS_IDS = new AtomicLong();
+
+	private static final Counter ABANDONED = Metrics.global().counter("grader.pools.abandoned");
+
+	private static final Counter REFUSED = Metrics.global().counter("grader.refused");
+
+	// Workers of abandoned pools still running a submission
+	private static final AtomicInteger OVERDUE = new AtomicInteger();
+
+	private static volatile ThreadPoolExecutor workers = newWorkerPool();
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+
+	private static final boolean ALLOCATED_BYTES = THREADS instanceof com.sun.management.ThreadMXBean allocations
+			&& allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled();
+
+	private final String reference;
+
+	private final int[] inputs;
+
+	private volatile String[] expected;
+
+	private final Map<String, Verdict> verdicts = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Verdict> eldest) {
+			return size() > VERDICT_CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * The outcome of grading a submission.
+	 */
+	enum Verdict {
+		/** Produced the reference output for every test input. */
+		PASSED,
+		/** Threw, produced a wrong output or ran over a budget. */
+		FAILED,
+		/** Did not compile or left the sandbox, so it never ran. */
+		REJECTED,
+		/** Ran out of wall-clock time. */
+		TIMED_OUT,
+		/** Not graded, because too many earlier submissions are still running. */
+		REFUSED
+	}
+
+	/**
+	 * Creates a grader for a question.
+	 *
+	 * @param reference the reference expression from answer.txt
+	 * @param inputs the values of {@code n} to test submissions with
+	 */
+	CodeGrader(String reference, int[] inputs) {
+		this.reference = reference;
+		this.inputs = inputs.clone();
+	}
+
+	/**
+	 * Checks whether the running JVM ships a Java compiler.
+	 *
+	 * @return true if submissions can be compiled
+	 */
+	static boolean isAvailable() {
+		return COMPILER != null;
+	}
+
+	/**
+	 * Grades a submitted expression.
+	 *
+	 * @param submission the player's expression, using {@code n}
+	 * @return true if it produces the reference output for every test input
+	 */
+	boolean grade(String submission) {
+		return check(submission) == Verdict.PASSED;
+	}
+
+	/**
+	 * Grades a submitted expression and tells why it did not pass.
+	 *
+	 * @param submission the player's expression, using {@code n}
+	 * @return the verdict
+	 */
+	Verdict check(String submission) {
+		GameEvents.CodeGraded event = new GameEvents.CodeGraded();
+		event.begin();
+		synchronized (verdicts) {
+			Verdict cached = verdicts.get(submission);
+			if (cached != null) {
+				event.finish(submission.length(), inputs.length, cached == Verdict.PASSED, true);
+				return cached;
+			}
+		}
+		if (OVERDUE.get() >= MAX_OVERDUE_WORKERS) {
+			REFUSED.increment();
+			event.finish(submission.length(), inputs.length, false, false);
+			return Verdict.REFUSED;
+		}
+		Verdict verdict;
+		try {
+			verdict = evaluate(submission);
+		} catch (TimeoutException e) {
+			event.finish(submission.length(), inputs.length, false, false);
+			return Verdict.TIMED_OUT;
+		}
+		synchronized (verdicts) {
+			verdicts.put(submission, verdict);
+		}
+		event.finish(submission.length(), inputs.length, verdict == Verdict.PASSED, false);
+		return verdict;
+	}
+
+	private Verdict evaluate(String submission) throws TimeoutException {
+		String[] want = expectedOutputs();
+		if (want == null) return Verdict.FAILED;
+		Class<?> type = compile(submission);
+		if (type == null) return Verdict.REJECTED;
+		Attempt attempt = new Attempt();
+		try {
+			return run(type, want, attempt) != null ? Verdict.PASSED : Verdict.FAILED;
+		} catch (TimeoutException e) {
+			// Its own code ran over, rather than waiting on a busy pool
+			if (attempt.ranOver()) return Verdict.TIMED_OUT;
+			throw e;
+		}
+	}
+
+	/**
+	 * Computes (once) the reference outputs for every test input.
+	 *
+	 * @return the expected outputs, or null if the reference does not compile
+	 * @throws TimeoutException if the reference ran out of wall-clock time
+	 */
+	private String[] expectedOutputs() throws TimeoutException {
+		String[] result = expected;
+		if (result == null) {
+			synchronized (this) {
+				result = expected;
+				if (result == null) {
+					Class<?> type = compile(reference);
+					result = type == null ? null : run(type, null, new Attempt());
+					if (result == null) {
+						System.err.println("Reference answer does not compile: " + reference);
+						return null;
+					}
+					expected = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Runs a compiled expression on every test input, splitting the inputs
+	 * across the worker pool.
+	 *
+	 * @param type the compiled expression
+	 * @param want the expected outputs to stop at the first mismatch, or null
+	 *        to compute every output
+	 * @param attempt tracks the workers running this expression
+	 * @return the output for each input, or null if it threw, produced a
+	 *         wrong output, or ran over its CPU or allocation budget
+	 * @throws TimeoutException if it ran out of wall-clock time or grading was
+	 *         interrupted, so there is no verdict
+	 */
+	private String[] run(Class<?> type, String[] want, Attempt attempt) throws TimeoutException {
+		String[] outputs = new String[inputs.length];
+		AtomicBoolean stop = new AtomicBoolean();
+		AtomicLong cpuNanos = new AtomicLong();
+		AtomicLong allocatedBytes = new AtomicLong();
+
+		int tasks = Math.max(1, Math.min(PARALLELISM, inputs.length / MIN_INPUTS_PER_TASK));
+		ThreadPoolExecutor pool = workers;
+		CompletionService<Boolean> completion = new ExecutorCompletionService<>(pool);
+		List<Future<Boolean>> futures = new ArrayList<>(tasks);
+		for (int t = 0; t < tasks; t++) {
+			int from = inputs.length * t / tasks;
+			int to = inputs.length * (t + 1) / tasks;
+			futures.add(completion.submit(() -> {
+				if (!attempt.start()) return false;
+				try {
+					return runRange(type, from, to, want, outputs, stop, cpuNanos, allocatedBytes);
+				} finally {
+					attempt.finish();
+				}
+			}));
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WALL_LIMIT_MILLIS);
+		boolean timedOut = false;
+		try {
+			for (int t = 0; t < tasks; t++) {
+				Future<Boolean> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				if (done == null) {
+					timedOut = true;
+					throw new TimeoutException();
+				}
+				if (!done.get()) {
+					return null; // A worker failed
+				}
+			}
+			return outputs;
+		} catch (ExecutionException e) {
+			return null;
+		} catch (CancellationException e) {
+			// Another grader's stuck task got it cancelled; no verdict
+			throw new TimeoutException();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TimeoutException();
+		} finally {
+			stop.set(true);
+			for (Future<Boolean> future : futures) {
+				// Drops tasks still queued; running ones check the stop flag
+				future.cancel(false);
+			}
+			if (timedOut && attempt.expire() > 0) {
+				abandon(pool);
+			}
+		}
+	}
+
+	/**
+	 * The workers running one expression. Once it is past its deadline, the
+	 * workers still running it count towards {@link #OVERDUE} until they
+	 * finish, and tasks that had not started yet do nothing.
+	 */
+	private static final class Attempt {
+		private int running;
+		private int ranOver;
+		private boolean expired;
+
+		synchronized boolean start() {
+			if (expired) return false;
+			running++;
+			return true;
+		}
+
+		synchronized void finish() {
+			running--;
+			if (expired) {
+				OVERDUE.decrementAndGet();
+			}
+		}
+
+		/**
+		 * Marks the expression as past its deadline.
+		 *
+		 * @return the number of workers still running it
+		 */
+		synchronized int expire() {
+			if (!expired) {
+				expired = true;
+				ranOver = running;
+				OVERDUE.addAndGet(running);
+			}
+			return ranOver;
+		}
+
+		synchronized boolean ranOver() {
+			return ranOver > 0;
+		}
+	}
+
+	/**
+	 * Replaces a pool whose worker is still running code past its deadline.
+	 * Its queued tasks move to the new pool; the old threads exit once they
+	 * finish what they are running.
+	 */
+	private static void abandon(ThreadPoolExecutor pool) {
+		synchronized (CodeGrader.class) {
+			if (workers != pool) return;
+			workers = newWorkerPool();
+		}
+		ABANDONED.increment();
+		pool.shutdown();
+		List<Runnable> queued = new ArrayList<>();
+		pool.getQueue().drainTo(queued);
+		for (Runnable task : queued) {
+			workers.execute(task);
+		}
+	}
+
+	/**
+	 * Instantiates a compiled expression and runs it on a range of test
+	 * inputs. Stops early when another worker failed, an output does not
+	 * match, or the submission's shared CPU or allocation budget runs out.
+	 *
+	 * @return true if every input in the range was evaluated successfully
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean runRange(Class<?> type, int from, int to, String[] want, String[] outputs,
+			AtomicBoolean stop, AtomicLong cpuNanos, AtomicLong allocatedBytes) {
+		long cpuMark = CPU_TIME ? THREADS.getCurrentThreadCpuTime() : 0;
+		long allocationMark = ALLOCATED_BYTES ? allocatedBytes() : 0;
+		IntFunction<Object> function;
+		try {
+			function = (IntFunction<Object>) type.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			stop.set(true);
+			return false;
+		}
+		for (int i = from; i < to; i++) {
+			if (stop.get()) return false;
+
+			String output = String.valueOf(function.apply(inputs[i]));
+			if (want != null && !want[i].equals(output)) {
+				stop.set(true);
+				return false;
+			}
+			outputs[i] = output;
+
+			if (CPU_TIME) {
+				long now = THREADS.getCurrentThreadCpuTime();
+				if (cpuNanos.addAndGet(now - cpuMark) > CPU_LIMIT_NANOS) {
+					stop.set(true);
+					return false;
+				}
+				cpuMark = now;
+			}
+			if (ALLOCATED_BYTES) {
+				long now = allocatedBytes();
+				if (allocatedBytes.addAndGet(now - allocationMark) > ALLOCATION_LIMIT_BYTES) {
+					stop.set(true);
+					return false;
+				}
+				allocationMark = now;
+			}
+		}
+		return true;
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes();
+	}
+
+	/**
+	 * Compiles an expression into a function of {@code n} in memory. The
+	 * class is loaded but not initialized, so none of its code runs here.
+	 *
+	 * @param expression the expression to compile
+	 * @return the compiled {@code IntFunction} class, or null if it does not
+	 *         compile or leaves the sandbox
+	 */
+	private static Class<?> compile(String expression) {
+		if (COMPILER == null || !isSingleExpression(expression)) return null;
+
+		String className = "Submission" + CLASS_IDS.incrementAndGet();
+		String source = "public final class " + className
+				+ " implements java.util.function.IntFunction<Object> {\n"
+				+ "\tpublic Object apply(int n) {\n"
+				+ "\t\treturn (" + expression + ");\n"
+				+ "\t}\n"
+				+ "}\n";
+
+		Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		// File managers are not thread-safe, so each compilation takes its own
+		StandardJavaFileManager files = FILES.pollFirst();
+		if (files == null) {
+			files = COMPILER.getStandardFileManager(null, null, null);
+		}
+		try {
+			JavaFileManager memory = new MemoryFileManager(files, classes);
+			JavacTask task = (JavacTask) COMPILER.getTask(null, memory, diagnostics, OPTIONS, null,
+					List.of(new SourceFile(className, source)));
+			Iterable<? extends CompilationUnitTree> units = task.parse();
+			if (hasErrors(diagnostics) || !isSingleReturn(units)) return null;
+			task.analyze();
+			if (hasErrors(diagnostics) || !isBounded(task, units)) return null;
+			task.generate();
+		} catch (IOException | RuntimeException e) {
+			return null;
+		} finally {
+			FILES.offerFirst(files);
+		}
+		if (hasErrors(diagnostics) || classes.size() != 1 || !classes.containsKey(className)) return null;
+
+		byte[] bytes = classes.get(className).toByteArray();
+		if (!isSandboxed(bytes, className)) return null;
+
+		try {
+			return new SubmissionLoader().define(className, bytes);
+		} catch (LinkageError e) {
+			return null;
+		}
+	}
+
+	private static boolean hasErrors(DiagnosticCollector<JavaFileObject> diagnostics) {
+		for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+			if (diagnostic.getKind() == Diagnostic.Kind.ERROR) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks the parsed source: one class whose only member is the generated
+	 * method, holding nothing but the return statement. Catches anything
+	 * that got past {@link #isSingleExpression(String)}.
+	 */
+	private static boolean isSingleReturn(Iterable<? extends CompilationUnitTree> units) {
+		int count = 0;
+		for (CompilationUnitTree unit : units) {
+			if (++count > 1 || unit.getTypeDecls().size() != 1) return false;
+			if (!(unit.getTypeDecls().get(0) instanceof ClassTree type) || type.getMembers().size() != 1) {
+				return false;
+			}
+			if (!(type.getMembers().get(0) instanceof MethodTree method) || method.getBody() == null
+					|| method.getBody().getStatements().size() != 1
+					|| method.getBody().getStatements().get(0).getKind() != Tree.Kind.RETURN) {
+				return false;
+			}
+		}
+		return count == 1;
+	}
+
+	/**
+	 * Checks the analyzed source for code whose cost is not bounded by its
+	 * length: array creation and any call or constructor that is not on
+	 * {@link #ALLOWED_METHODS}, which includes calls back into the
+	 * submission.
+	 */
+	private static boolean isBounded(JavacTask task, Iterable<? extends CompilationUnitTree> units) {
+		Trees trees = Trees.instance(task);
+		AtomicBoolean bounded = new AtomicBoolean(true);
+		TreePathScanner<Void, Void> scanner = new TreePathScanner<>() {
+			@Override
+			public Void visitMethod(MethodTree tree, Void unused) {
+				// Skips the default constructor the compiler adds
+				if (tree.getName().contentEquals("<init>")) return null;
+				return super.visitMethod(tree, unused);
+			}
+
+			@Override
+			public Void visitNewArray(NewArrayTree tree, Void unused) {
+				bounded.set(false);
+				return null;
+			}
+
+			@Override
+			public Void visitMethodInvocation(MethodInvocationTree tree, Void unused) {
+				check(trees.getElement(getCurrentPath()));
+				return super.visitMethodInvocation(tree, unused);
+			}
+
+			@Override
+			public Void visitNewClass(NewClassTree tree, Void unused) {
+				check(trees.getElement(getCurrentPath()));
+				return super.visitNewClass(tree, unused);
+			}
+
+			private void check(Element element) {
+				if (!(element instanceof ExecutableElement method)) {
+					bounded.set(false);
+					return;
+				}
+				String name = method.getEnclosingElement() + "." + method.getSimpleName();
+				if (!ALLOWED_METHODS.contains(name) && !ALLOWED_METHODS.contains(signature(name, method))) {
+					bounded.set(false);
+				}
+			}
+		};
+		for (CompilationUnitTree unit : units) {
+			scanner.scan(unit, null);
+		}
+		return bounded.get();
+	}
+
+	private static String signature(String name, ExecutableElement method) {
+		StringBuilder signature = new StringBuilder(name).append('(');
+		for (VariableElement parameter : method.getParameters()) {
+			if (signature.charAt(signature.length() - 1) != '(') signature.append(',');
+			signature.append(parameter.asType());
+		}
+		return signature.append(')').toString();
+	}
+
+	/**
+	 * Checks the constant pool of a compiled submission: every referenced
+	 * class and every member descriptor must only use allowed types, and
+	 * method handles and invokedynamic are rejected outright.
+	 *
+	 * @param classFile the compiled class
+	 * @param className the submission's own class name
+	 * @return true if the class stays within the sandbox
+	 */
+	static boolean isSandboxed(byte[] classFile, String className) {
+		try (DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(classFile))) {
+			in.readInt(); // magic
+			in.readUnsignedShort(); // minor
+			in.readUnsignedShort(); // major
+			int count = in.readUnsignedShort();
+			String[] utf8 = new String[count];
+			List<Integer> typeNames = new ArrayList<>();
+			List<Integer> descriptors = new ArrayList<>();
+			for (int i = 1; i < count; i++) {
+				int tag = in.readUnsignedByte();
+				switch (tag) {
+					case 1 -> utf8[i] = in.readUTF();
+					case 3, 4 -> in.readInt();
+					case 5, 6 -> {
+						in.readLong();
+						i++; // Takes two slots
+					}
+					case 7 -> typeNames.add(in.readUnsignedShort());
+					case 8, 16, 19, 20 -> in.readUnsignedShort();
+					case 9, 10, 11 -> in.readInt();
+					case 12 -> {
+						in.readUnsignedShort();
+						descriptors.add(in.readUnsignedShort());
+					}
+					default -> {
+						// Method handles, invokedynamic and unknown entries
+						return false;
+					}
+				}
+			}
+			for (int index : typeNames) {
+				if (!isAllowedType(utf8[index], className)) return false;
+			}
+			for (int index : descriptors) {
+				String descriptor = utf8[index];
+				int start;
+				while ((start = descriptor.indexOf('L')) >= 0) {
+					int end = descriptor.indexOf(';', start);
+					if (end < 0) return false;
+					if (!isAllowedType(descriptor.substring(start + 1, end), className)) return false;
+					descriptor = descriptor.substring(end + 1);
+				}
+			}
+			return true;
+		} catch (IOException | RuntimeException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Rejects text that could close the generated method and add code of its
+	 * own: ';', '{' and '}' are only allowed inside string or char literals,
+	 * and Unicode escapes are not allowed at all, since the compiler decodes
+	 * them before it sees any literal.
+	 *
+	 * @param expression the submitted expression
+	 * @return true if the text can only be a single expression
+	 */
+	static boolean isSingleExpression(String expression) {
+		char quote = 0;
+		for (int i = 0; i < expression.length(); i++) {
+			char c = expression.charAt(i);
+			if (c == '\\' && i + 1 < expression.length() && expression.charAt(i + 1) == 'u') {
+				return false;
+			}
+			if (quote != 0) {
+				if (c == '\\') {
+					i++;
+				} else if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == ';' || c == '{' || c == '}') {
+				return false;
+			}
+		}
+		return quote == 0;
+	}
+
+	private static boolean isAllowedType(String name, String className) {
+		if (name == null) return false;
+		String element = name;
+		while (element.startsWith("[")) {
+			element = element.substring(1);
+		}
+		if (element.length() == 1) return true; // Primitive array
+		if (element.startsWith("L") && element.endsWith(";")) {
+			element = element.substring(1, element.length() - 1);
+		}
+		return element.equals(className) || ALLOWED_TYPES.contains(element);
+	}
+
+	/**
+	 * Creates the bounded pool that runs submissions, one thread per core.
+	 * Idle threads time out so the pool costs nothing between submissions.
+	 *
+	 * @return the worker pool
+	 */
+	private static ThreadPoolExecutor newWorkerPool() {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(PARALLELISM, PARALLELISM, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), task -> {
+					Thread thread = new Thread(task, "code-grader");
+					thread.setDaemon(true);
+					return thread;
+				});
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	/**
+	 * Parses the test inputs stored in a question's tests.txt: one integer per
+	 * line, blank lines and lines starting with '#' ignored.
+	 *
+	 * @param text the file contents
+	 * @return the test inputs
+	 */
+	static int[] parseInputs(String text) {
+		return text.lines()
+				.map(String::trim)
+				.filter(line -> !line.isEmpty() && !line.startsWith("#"))
+				.mapToInt(Integer::parseInt)
+				.toArray();
+	}
+
+	/**
+	 * A submission's source code held in memory.
+	 */
+	private static final class SourceFile extends SimpleJavaFileObject {
+		private final String source;
+
+		SourceFile(String className, String source) {
+			super(URI.create("string:///" + className + Kind.SOURCE.extension), Kind.SOURCE);
+			this.source = source;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return source;
+		}
+	}
+
+	/**
+	 * A file manager that keeps compiled classes in memory.
+	 */
+	private static final class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+		private final Map<String, ByteArrayOutputStream> classes;
+
+		MemoryFileManager(JavaFileManager delegate, Map<String, ByteArrayOutputStream> classes) {
+			super(delegate);
+			this.classes = classes;
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className,
+				JavaFileObject.Kind kind, FileObject sibling) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			classes.put(className, bytes);
+			return new SimpleJavaFileObject(URI.create("mem:///" + className + kind.extension), kind) {
+				@Override
+				public OutputStream openOutputStream() {
+					return bytes;
+				}
+			};
+		}
+	}
+
+	/**
+	 * A throwaway class loader per submission, so compiled submissions can be
+	 * unloaded once they are no longer used.
+	 */
+	private static final class SubmissionLoader extends ClassLoader {
+		SubmissionLoader() {
+			super(CodeGrader.class.getClassLoader());
+		}
+
+		Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+}
@@ -0,0 +1,277 @@
+package entities;
+
+import metrics.Histogram;
+import metrics.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code ContentRepository} class is a process-wide cache of loaded
+ * {@link Room} content. Each room directory is read from disk once, and the
+ * resulting immutable {@code Room} (description and {@link Question} objects)
+ * is handed to every {@code Engine} that asks for it.
+ *
+ * <p>
+ * Lookups never touch the file system. Call {@link #refresh()} to re-check the
+ * cached rooms and reload only the ones whose files changed,
+ * {@link #reload(String, Collection)} to re-read the changed files of a room, or
+ * {@link #invalidate(String)} to drop a single room.
+ *
+ * <p>
+ * When the {@code algotraz.bundle} system property names a compiled
+ * {@link QuestionBundle}, rooms found in it are built from the bundle
+ * (matched by directory name) instead of from their text files. Reloading
+ * such a room packs the story directory into the bundle again first, so
+ * edits show up whether or not a bundle is in use.
+ *
+ * @version 1.0
+ */
+public final class ContentRepository {
+
+	private static final ContentRepository INSTANCE = new ContentRepository();
+
+	private static final Histogram LOAD_TIME = Metrics.global().histogram("content.room.load");
+
+	private final Map<String, Entry> rooms = new ConcurrentHashMap<>();
+
+	private volatile QuestionBundle bundle;
+
+	private volatile long bundleStamp;
+
+	/**
+	 * A loaded room together with the file stamp it was loaded from.
+	 */
+	private static final class Entry {
+		final Room room;
+		final long stamp;
+
+		Entry(Room room, long stamp) {
+			this.room = room;
+			this.stamp = stamp;
+		}
+	}
+
+	private ContentRepository() {
+		String file = System.getProperty("algotraz.bundle");
+		if (file != null && !file.isEmpty()) {
+			openBundle(Paths.get(file));
+		}
+	}
+
+	/**
+	 * Gets the shared repository instance.
+	 *
+	 * @return the process-wide content repository
+	 */
+	public static ContentRepository getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the room stored at the given path, loading it on first use.
+	 *
+	 * @param roomPath   the path to the room's directory
+	 * @param roomNumber the room/level number
+	 * @param threshold  the threshold for the room
+	 * @return the shared, immutable room
+	 */
+	public Room getRoom(String roomPath, int roomNumber, int threshold) {
+		Entry entry = rooms.get(roomPath);
+		if (entry != null && matches(entry.room, roomNumber, threshold)) {
+			return entry.room;
+		}
+		return rooms.compute(roomPath, (path, current) -> {
+			if (current != null && matches(current.room, roomNumber, threshold)) {
+				return current;
+			}
+			return load(path, roomNumber, threshold);
+		}).room;
+	}
+
+	/**
+	 * Re-checks every cached room against the files on disk and reloads the
+	 * rooms whose description or question files changed.
+	 *
+	 * @return the number of rooms that were reloaded
+	 */
+	public int refresh() {
+		QuestionBundle mapped = bundle;
+		if (mapped != null && fingerprint(mapped.getFile().toFile()) != bundleStamp) {
+			openBundle(mapped.getFile());
+		}
+		int reloaded = 0;
+		for (String path : rooms.keySet()) {
+			Entry before = rooms.get(path);
+			Entry after = rooms.computeIfPresent(path, (p, current) -> {
+				if (currentStamp(p) == current.stamp) {
+					return current;
+				}
+				return load(p, current.room.getRoomNumber(), current.room.getRoomThreshold());
+			});
+			if (after != before) {
+				reloaded++;
+			}
+		}
+		return reloaded;
+	}
+
+	/**
+	 * Replaces a cached room with a copy that re-reads the changed entries of
+	 * its directory, leaving the other questions as they are. The old room
+	 * is not modified, so games already holding it are unaffected. For a
+	 * room built from a bundle, the bundle is packed again from the room's
+	 * story directory and the room is rebuilt from it.
+	 *
+	 * @param roomPath the path to the room's directory
+	 * @param changed  the names of the changed entries in the room
+	 *                 directory, such as {@code problem_description.txt} or
+	 *                 {@code problem2}
+	 * @return the current room, or null if the room is not cached
+	 */
+	public Room reload(String roomPath, Collection<String> changed) {
+		QuestionBundle mapped = bundle;
+		if (mapped != null && mapped.contains(new File(roomPath).getName())) {
+			return reloadBundled(mapped, roomPath);
+		}
+		Entry entry = rooms.computeIfPresent(roomPath, (path, current) -> {
+			long stamp = stampOf(path);
+			if (stamp == current.stamp) {
+				return current;
+			}
+			long start = System.nanoTime();
+			Entry reloaded = new Entry(current.room.reload(path, changed), stamp);
+			LOAD_TIME.recordSince(start);
+			return reloaded;
+		});
+		return entry == null ? null : entry.room;
+	}
+
+	/**
+	 * Packs the story directory holding a bundled room into the bundle file
+	 * again, maps the new bundle and rebuilds the room from it.
+	 */
+	private Room reloadBundled(QuestionBundle mapped, String roomPath) {
+		synchronized (this) {
+			// Another room of the same change may have repacked already
+			if (bundle == mapped) {
+				try {
+					QuestionBundle.pack(new File(roomPath).getAbsoluteFile().getParentFile().toPath(),
+							mapped.getFile());
+				} catch (IOException e) {
+					System.err.println("Couldn't repack question bundle: " + e.getMessage());
+					return getCached(roomPath);
+				}
+				openBundle(mapped.getFile());
+			}
+		}
+		Entry entry = rooms.computeIfPresent(roomPath,
+				(path, current) -> load(path, current.room.getRoomNumber(), current.room.getRoomThreshold()));
+		return entry == null ? null : entry.room;
+	}
+
+	private Room getCached(String roomPath) {
+		Entry entry = rooms.get(roomPath);
+		return entry == null ? null : entry.room;
+	}
+
+	/**
+	 * Drops the cached room for the given path. The next lookup reloads it.
+	 *
+	 * @param roomPath the path to the room's directory
+	 */
+	public void invalidate(String roomPath) {
+		rooms.remove(roomPath);
+	}
+
+	/**
+	 * Drops every cached room.
+	 */
+	public void clear() {
+		rooms.clear();
+	}
+
+	private static boolean matches(Room room, int roomNumber, int threshold) {
+		return room.getRoomNumber() == roomNumber && room.getRoomThreshold() == threshold;
+	}
+
+	private Entry load(String roomPath, int roomNumber, int threshold) {
+		long start = System.nanoTime();
+		QuestionBundle current = bundle;
+		String name = new File(roomPath).getName();
+		Entry entry;
+		if (current != null && current.contains(name)) {
+			entry = new Entry(current.createRoom(name, roomNumber, threshold), bundleStamp);
+		} else {
+			long stamp = stampOf(roomPath);
+			entry = new Entry(new Room(roomPath, roomNumber, threshold), stamp);
+		}
+		LOAD_TIME.recordSince(start);
+		return entry;
+	}
+
+	/**
+	 * Maps a bundle and makes it the source for the rooms it holds. Keeps
+	 * the previous bundle (or the text files) if it cannot be opened.
+	 *
+	 * @param file the bundle file
+	 */
+	private void openBundle(Path file) {
+		try {
+			long stamp = fingerprint(file.toFile());
+			bundle = QuestionBundle.open(file);
+			bundleStamp = stamp;
+		} catch (IOException e) {
+			System.err.println("Couldn't open question bundle: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Gets the stamp a cached room is compared against on refresh: the
+	 * bundle's stamp for rooms in the bundle, the directory's otherwise.
+	 */
+	private long currentStamp(String roomPath) {
+		QuestionBundle current = bundle;
+		if (current != null && current.contains(new File(roomPath).getName())) {
+			return bundleStamp;
+		}
+		return stampOf(roomPath);
+	}
+
+	/**
+	 * Computes a cheap fingerprint of a room directory from the modification
+	 * times and sizes of its files, so changed rooms can be detected without
+	 * reading their content. The fingerprint does not depend on listing order.
+	 *
+	 * @param roomPath the path to the room's directory
+	 * @return the fingerprint of the room's files
+	 */
+	private static long stampOf(String roomPath) {
+		File root = new File(roomPath);
+		long stamp = fingerprint(root);
+		File[] children = root.listFiles();
+		if (children == null) {
+			return stamp;
+		}
+		for (File child : children) {
+			stamp += fingerprint(child);
+			if (child.isDirectory()) {
+				File[] files = child.listFiles();
+				if (files == null) continue;
+				for (File file : files) {
+					stamp += fingerprint(file);
+				}
+			}
+		}
+		return stamp;
+	}
+
+	private static long fingerprint(File file) {
+		return file.getPath().hashCode() * 31L + file.lastModified() * 17 + file.length();
+	}
+}
@@ -1,7 +1,11 @@
 package entities;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * Class: Question
@@ -23,6 +27,29 @@ public class Question {
 
 	protected int scoreWeight;
 
+	/**
+	 * Difficulty of a question without a meta.txt file.
+	 */
+	public static final int DEFAULT_DIFFICULTY = 1;
+
+	/**
+	 * Highest difficulty a question can have.
+	 */
+	public static final int MAX_DIFFICULTY = 5;
+
+	protected int difficulty = DEFAULT_DIFFICULTY;
+
+	protected Set<String> tags = Collections.emptySet();
+
+	// Calibrated weights stay within these multiples of the base weight
+	private static final double MIN_WEIGHT_SCALE = 0.5;
+
+	private static final double MAX_WEIGHT_SCALE = 2.0;
+
+	private final QuestionStats stats = new QuestionStats();
+
+	// Score weight calibrated from live answers; 0 until the first answer
+	private volatile int calibratedWeight;
 
 	/**
 	 * Prints the question to the console.
@@ -50,12 +77,168 @@ public class Question {
 		return this.question;
 	}
 
+	/**
+	 * Gets the reference answer, in the form a player would type it.
+	 * 
+	 * @return The correct answer.
+	 */
+	public String getAnswer() {
+		return this.answer;
+	}
+
+	/**
+	 * Gets the question's score weight, calibrated by how often players get
+	 * it right. A question answered correctly less often than expected is
+	 * worth more than its base weight, and one answered correctly more often
+	 * is worth less. Before any answers it equals the base weight.
+	 * 
+	 * @return The calibrated score weight.
+	 */
 	public int getScoreWeight() {
+		int weight = this.calibratedWeight;
+		return weight == 0 ? this.scoreWeight : weight;
+	}
+
+	/**
+	 * Gets the question's base score weight (20, 30 or 50 by type).
+	 * 
+	 * @return The base score weight.
+	 */
+	public int getBaseScoreWeight() {
 		return this.scoreWeight;
 	}
 
 	public void setScoreWeight(int scoreWeight) {
 		this.scoreWeight = scoreWeight;
+		if (stats.getAnswerCount() > 0) recalibrate();
+	}
+
+	/**
+	 * Gets the answers recorded for this question across all sessions.
+	 * 
+	 * @return The live answer statistics.
+	 */
+	public QuestionStats getStats() {
+		return this.stats;
+	}
+
+	/**
+	 * Records a player's answer and updates the calibrated score weight.
+	 * 
+	 * @param correct Whether the answer was correct.
+	 * @param elapsedNanos How long the player took to answer.
+	 */
+	public void recordAnswer(boolean correct, long elapsedNanos) {
+		stats.record(correct, elapsedNanos);
+		recalibrate();
+	}
+
+	/**
+	 * Scales the base weight by the observed failure rate relative to the
+	 * expected one.
+	 */
+	private void recalibrate() {
+		double scale = (1 - stats.getSuccessRate()) / (1 - QuestionStats.PRIOR_SUCCESS_RATE);
+		scale = Math.max(MIN_WEIGHT_SCALE, Math.min(MAX_WEIGHT_SCALE, scale));
+		int weight = Math.max(1, (int) Math.round(this.scoreWeight * scale));
+		// Skip the volatile write while the weight is stable
+		if (weight != this.calibratedWeight) {
+			this.calibratedWeight = weight;
+		}
+	}
+
+	/**
+	 * Gets the question's difficulty, from 1 (easiest) to
+	 * {@link #MAX_DIFFICULTY}.
+	 * 
+	 * @return The difficulty.
+	 */
+	public int getDifficulty() {
+		return this.difficulty;
+	}
+
+	/**
+	 * Gets the question's topic tags.
+	 * 
+	 * @return The read-only set of tags.
+	 */
+	public Set<String> getTags() {
+		return this.tags;
+	}
+
+	/**
+	 * Sets the question's difficulty and tags, as read from its meta.txt.
+	 * 
+	 * @param difficulty The difficulty.
+	 * @param tags The topic tags.
+	 */
+	void setMetadata(int difficulty, Set<String> tags) {
+		this.difficulty = difficulty;
+		this.tags = tags;
+	}
+
+	/**
+	 * Creates a question from text that is already loaded, such as a
+	 * compiled question bundle. Kinds are numbered like the rooms that hold
+	 * them: 1 for True/False, 2 for Multiple Choice and 3 for Code.
+	 *
+	 * @param kind The kind of question.
+	 * @param question The question text.
+	 * @param answer The answer text.
+	 * @param tests The contents of tests.txt for a Code question, or null.
+	 * @return The question, or null if the kind is unknown.
+	 */
+	static Question create(int kind, String question, String answer, String tests) {
+		return switch (kind) {
+			case 1 -> new TrueFalseQuestion(question, answer);
+			case 2 -> new MultipleChoiceQuestion(question, answer);
+			case 3 -> new CodeQuestion(question, answer, tests);
+			default -> null;
+		};
+	}
+
+	/**
+	 * Reads the difficulty from the contents of a meta.txt file, which holds
+	 * "difficulty: N" and "tags: a, b" lines. Lines starting with # are
+	 * comments.
+	 * 
+	 * @param meta The file contents.
+	 * @return The difficulty, clamped to 1..MAX_DIFFICULTY, or the default.
+	 * @throws NumberFormatException If the difficulty is not a number.
+	 */
+	static int parseDifficulty(String meta) {
+		String value = metaValue(meta, "difficulty");
+		if (value == null) return DEFAULT_DIFFICULTY;
+		return Math.max(1, Math.min(MAX_DIFFICULTY, Integer.parseInt(value)));
+	}
+
+	/**
+	 * Reads the tags from the contents of a meta.txt file.
+	 * 
+	 * @param meta The file contents.
+	 * @return The read-only set of tags, lower-cased, in file order.
+	 */
+	static Set<String> parseTags(String meta) {
+		String value = metaValue(meta, "tags");
+		if (value == null) return Collections.emptySet();
+		Set<String> tags = new LinkedHashSet<>();
+		for (String tag : value.split(",")) {
+			tag = tag.trim().toLowerCase();
+			if (!tag.isEmpty()) tags.add(tag);
+		}
+		return Collections.unmodifiableSet(tags);
+	}
+
+	private static String metaValue(String meta, String key) {
+		for (String line : meta.split("\n")) {
+			line = line.trim();
+			if (line.startsWith("#")) continue;
+			int colon = line.indexOf(':');
+			if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase(key)) {
+				return line.substring(colon + 1).trim();
+			}
+		}
+		return null;
 	}
 }
 
@@ -100,6 +283,24 @@ class TrueFalseQuestion extends Question {
         }
     }
 
+	/**
+	 * Constructor for TrueFalseQuestion from text that is already loaded,
+	 * such as a compiled question bundle.
+	 * 
+	 * @param question The question text.
+	 * @param answer The answer text, "True" or "False".
+	 */
+	TrueFalseQuestion(String question, String answer) {
+		this.scoreWeight = 20; // Set the score weight for True/False questions
+		this.question = question.trim();
+		this.correctAnswer = answer.trim().equals("True");
+	}
+
+	@Override
+	public String getAnswer() {
+		return correctAnswer ? "True" : "False";
+	}
+
 
 	/**
 	 * Checks if the player's answer is correct.
@@ -158,6 +359,24 @@ class MultipleChoiceQuestion extends Question {
 		}
 	}
 
+	/**
+	 * Constructor for MultipleChoiceQuestion from text that is already
+	 * loaded, such as a compiled question bundle.
+	 * 
+	 * @param question The question text.
+	 * @param answer The answer text, starting with the correct letter.
+	 */
+	MultipleChoiceQuestion(String question, String answer) {
+		this.scoreWeight = 30; // Set the score weight for Multiple Choice questions
+		this.question = question.trim();
+		this.correctAnswer = answer.trim().charAt(0);
+	}
+
+	@Override
+	public String getAnswer() {
+		return String.valueOf(correctAnswer);
+	}
+
 	/**
 	 * Checks if the player's answer is correct.
 	 * 
@@ -166,6 +385,8 @@ class MultipleChoiceQuestion extends Question {
 	 */
 	@Override
 	public boolean checkPlayerAnswer(String input) {
+		// An empty answer is wrong, not an error
+		if (input.isEmpty()) return false;
 		// Convert input to lowercase for case-insensitive comparison
 		String upperInput = input.toUpperCase();
 		return upperInput.charAt(0) == correctAnswer && input.length() == 1;
@@ -188,9 +409,13 @@ class CodeQuestion extends Question {
 
 	private String correctCode;
 
+	private CodeGrader grader;
+
 	/**
 	 * Constructor for CodeQuestion.
-	 * Reads the question and answer from the specified path.
+	 * Reads the question and answer from the specified path. If the directory
+	 * also has a tests.txt file, answers are graded by running them against
+	 * those inputs instead of comparing text.
 	 * 
 	 * @param path The path to the question directory.
 	 * @throws IOException If there is an error reading the files.
@@ -201,19 +426,54 @@ class CodeQuestion extends Question {
 			// get question directory path and answer file path
 			String questionPath = path + "/question.txt";
 			String answerPath = path + "/answer.txt";
+			Path testsPath = Paths.get(path, "tests.txt");
 
 			// Read the question from the file
 			this.question = Files.readString(Paths.get(questionPath)).trim();
 
 			// Read the answer from the file
 			this.correctCode = Files.readString(Paths.get(answerPath)).trim();
-		} catch (IOException e) {
+
+			// Read the test inputs, if the question has any
+			if (Files.exists(testsPath) && CodeGrader.isAvailable()) {
+				int[] inputs = CodeGrader.parseInputs(Files.readString(testsPath));
+				this.grader = new CodeGrader(this.correctCode, inputs);
+			}
+		} catch (IOException | NumberFormatException e) {
 			System.err.println("Error reading Code question: " + e.getMessage());
 		}
 	}
 
 	/**
-	 * Checks if the player's answer is correct.
+	 * Constructor for CodeQuestion from text that is already loaded, such as
+	 * a compiled question bundle.
+	 * 
+	 * @param question The question text.
+	 * @param answer The reference answer expression.
+	 * @param tests The contents of tests.txt, or null if there is none.
+	 */
+	CodeQuestion(String question, String answer, String tests) {
+		this.scoreWeight = 50; // Set the score weight for Code questions
+		this.question = question.trim();
+		this.correctCode = answer.trim();
+		if (tests != null && CodeGrader.isAvailable()) {
+			try {
+				this.grader = new CodeGrader(this.correctCode, CodeGrader.parseInputs(tests));
+			} catch (NumberFormatException e) {
+				System.err.println("Error reading Code question: " + e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public String getAnswer() {
+		return correctCode;
+	}
+
+	/**
+	 * Checks if the player's answer is correct. An exact match with the
+	 * reference answer is accepted straight away; otherwise the answer is
+	 * compiled and run against the question's test inputs, when it has any.
 	 * 
 	 * @param input The player's answer.
 	 * @return true if the answer is correct, false otherwise.
@@ -221,6 +481,10 @@ class CodeQuestion extends Question {
 	@Override
 	public boolean checkPlayerAnswer(String input) {
 		// Compare the input code with the correct code
-		return input.trim().equals(correctCode.trim());
+		String code = input.trim();
+		if (code.equals(correctCode.trim())) {
+			return true;
+		}
+		return grader != null && !code.isEmpty() && grader.grade(code);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,348 @@
+package entities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The {@code QuestionBundle} class is a compiled, read-only image of the
+ * story directory. The build packs every room's description and question
+ * files into one binary file, and the game maps that file into memory once
+ * instead of opening dozens of small text files.
+ *
+ * <p>
+ * Questions are decoded lazily: a room built from a bundle only parses a
+ * question the first time it is asked for, and then keeps it.
+ *
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ * header    magic "ALGB", version, room count
+ * rooms     name, description, question count, offset of first question
+ * questions type, difficulty, question, answer, tests, comma-separated tags
+ * strings   UTF-8 bytes referenced above as (offset, length)
+ * </pre>
+ * A missing tests file is stored with length -1. Difficulty and tags come
+ * from the question's meta.txt file.
+ *
+ * <p>
+ * Usage: {@code java entities.QuestionBundle <storyDir> <bundleFile>}.
+ *
+ * @version 1.0
+ */
+public final class QuestionBundle {
+
+	private static final int MAGIC = 0x414C4742; // "ALGB"
+
+	private static final int VERSION = 2;
+
+	private static final int HEADER_SIZE = 12;
+
+	private static final int ROOM_SIZE = 24;
+
+	private static final int QUESTION_SIZE = 40;
+
+	private static final int TRUE_FALSE = 1;
+
+	private static final int MULTIPLE_CHOICE = 2;
+
+	private static final int CODE = 3;
+
+	private final Path file;
+
+	private final ByteBuffer buffer;
+
+	// Room directory name -> offset of the room's index entry
+	private final Map<String, Integer> rooms = new HashMap<>();
+
+	private QuestionBundle(Path file, ByteBuffer buffer) throws IOException {
+		this.file = file;
+		this.buffer = buffer;
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException(file + " is not a question bundle");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException(file + " has unsupported bundle version " + buffer.getInt(4));
+		}
+		int roomCount = buffer.getInt(8);
+		for (int i = 0; i < roomCount; i++) {
+			int at = HEADER_SIZE + i * ROOM_SIZE;
+			rooms.put(string(at), at);
+		}
+	}
+
+	/**
+	 * Maps a bundle file into memory.
+	 *
+	 * @param file the bundle file
+	 * @return the opened bundle
+	 * @throws IOException if the file cannot be read or is not a bundle
+	 */
+	public static QuestionBundle open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			// The mapping stays valid after the channel is closed
+			return new QuestionBundle(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Gets the file this bundle was mapped from.
+	 *
+	 * @return the bundle file
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns whether the bundle holds a room directory.
+	 *
+	 * @param roomName the room directory's name, such as {@code room1}
+	 * @return true if the room is in the bundle
+	 */
+	public boolean contains(String roomName) {
+		return rooms.containsKey(roomName);
+	}
+
+	/**
+	 * Builds a room from the bundle. Its questions are decoded on first use.
+	 *
+	 * @param roomName   the room directory's name, such as {@code room1}
+	 * @param roomNumber the room/level number
+	 * @param threshold  the threshold for the room
+	 * @return the room, or null if the bundle does not hold it
+	 */
+	public Room createRoom(String roomName, int roomNumber, int threshold) {
+		Integer at = rooms.get(roomName);
+		if (at == null) {
+			return null;
+		}
+		String description = string(at + 8);
+		int count = buffer.getInt(at + 16);
+		int first = buffer.getInt(at + 20);
+
+		// Only the metadata is read up front, for the room's question pool
+		int[] difficulties = new int[count];
+		List<Set<String>> tags = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int entry = first + i * QUESTION_SIZE;
+			difficulties[i] = buffer.getInt(entry + 4);
+			tags.add(tags(string(entry + 32)));
+		}
+		return new Room(roomNumber, threshold, description, new LazyQuestions(first, count), difficulties, tags);
+	}
+
+	/**
+	 * A fixed list of questions that decodes each one the first time it is
+	 * read. Safe to share between threads: a question decoded twice by a race
+	 * is simply dropped in favour of the first one published.
+	 */
+	private final class LazyQuestions extends AbstractList<Question> implements RandomAccess {
+		private final int first;
+		private final AtomicReferenceArray<Question> decoded;
+
+		LazyQuestions(int first, int count) {
+			this.first = first;
+			this.decoded = new AtomicReferenceArray<>(count);
+		}
+
+		@Override
+		public Question get(int index) {
+			Question question = decoded.get(index);
+			if (question == null) {
+				question = decode(first + index * QUESTION_SIZE);
+				if (!decoded.compareAndSet(index, null, question)) {
+					question = decoded.get(index);
+				}
+			}
+			return question;
+		}
+
+		@Override
+		public int size() {
+			return decoded.length();
+		}
+	}
+
+	private Question decode(int at) {
+		String text = string(at + 8);
+		String answer = string(at + 16);
+		int type = buffer.getInt(at);
+		Question question = Question.create(type, text, answer, type == CODE ? string(at + 24) : null);
+		if (question == null) {
+			throw new IllegalStateException("Unknown question type in " + file);
+		}
+		question.setMetadata(buffer.getInt(at + 4), tags(string(at + 32)));
+		return question;
+	}
+
+	private static Set<String> tags(String joined) {
+		if (joined.isEmpty()) return Collections.emptySet();
+		return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(joined.split(","))));
+	}
+
+	/**
+	 * Reads a string stored as (offset, length) at the given position.
+	 *
+	 * @return the string, or null if its length is -1
+	 */
+	private String string(int at) {
+		int offset = buffer.getInt(at);
+		int length = buffer.getInt(at + 4);
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(offset, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Packs a story directory into a bundle file. Every {@code roomN}
+	 * directory is included; the question type comes from the room number,
+	 * as in {@link Room}.
+	 *
+	 * @param storyDir the story directory
+	 * @param out      the bundle file to write
+	 * @return the number of rooms packed
+	 * @throws IOException if a file cannot be read or the bundle written
+	 */
+	public static int pack(Path storyDir, Path out) throws IOException {
+		File[] roomDirs = storyDir.toFile().listFiles(f -> f.isDirectory() && f.getName().matches("room\\d+"));
+		if (roomDirs == null) {
+			throw new IOException(storyDir + " is not a directory");
+		}
+		Arrays.sort(roomDirs);
+
+		ByteArrayOutputStream strings = new ByteArrayOutputStream();
+		List<int[]> roomEntries = new ArrayList<>();
+		List<int[]> questionEntries = new ArrayList<>();
+		for (File roomDir : roomDirs) {
+			int type = Integer.parseInt(roomDir.getName().substring(4));
+			if (type < TRUE_FALSE || type > CODE) {
+				throw new IOException("Unknown room number: " + roomDir.getName());
+			}
+			File[] problems = roomDir.listFiles(File::isDirectory);
+			if (problems == null) problems = new File[0];
+			Arrays.sort(problems);
+
+			int[] room = new int[6];
+			put(strings, roomDir.getName().getBytes(StandardCharsets.UTF_8), room, 0);
+			put(strings, read(new File(roomDir, "problem_description.txt")), room, 2);
+			room[4] = problems.length;
+			room[5] = questionEntries.size();
+			roomEntries.add(room);
+
+			for (File problem : problems) {
+				File meta = new File(problem, "meta.txt");
+				String metaText = meta.isFile() ? Files.readString(meta.toPath()) : "";
+
+				int[] question = new int[10];
+				question[0] = type;
+				question[1] = Question.parseDifficulty(metaText);
+				put(strings, read(new File(problem, "question.txt")), question, 2);
+				put(strings, read(new File(problem, "answer.txt")), question, 4);
+				File tests = new File(problem, "tests.txt");
+				put(strings, tests.isFile() ? read(tests) : null, question, 6);
+				String tags = String.join(",", Question.parseTags(metaText));
+				put(strings, tags.getBytes(StandardCharsets.UTF_8), question, 8);
+				questionEntries.add(question);
+			}
+		}
+
+		// Offsets are relative to the string area until the index size is known
+		int questionsStart = HEADER_SIZE + roomEntries.size() * ROOM_SIZE;
+		int stringsStart = questionsStart + questionEntries.size() * QUESTION_SIZE;
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(stringsStart + strings.size());
+		DataOutputStream data = new DataOutputStream(bytes);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(roomEntries.size());
+		for (int[] room : roomEntries) {
+			data.writeInt(stringsStart + room[0]);
+			data.writeInt(room[1]);
+			data.writeInt(stringsStart + room[2]);
+			data.writeInt(room[3]);
+			data.writeInt(room[4]);
+			data.writeInt(questionsStart + room[5] * QUESTION_SIZE);
+		}
+		for (int[] question : questionEntries) {
+			data.writeInt(question[0]);
+			data.writeInt(question[1]);
+			for (int i = 2; i < question.length; i += 2) {
+				data.writeInt(stringsStart + question[i]);
+				data.writeInt(question[i + 1]);
+			}
+		}
+		strings.writeTo(data);
+		data.flush();
+
+		// Write next to the target and move it into place, so a running game
+		// never maps a half-written bundle
+		Path parent = out.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		Path temp = parent.resolve(out.getFileName() + ".tmp");
+		Files.write(temp, bytes.toByteArray());
+		Files.move(temp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return roomEntries.size();
+	}
+
+	/**
+	 * Appends bytes to the string area and records their (offset, length) in
+	 * {@code entry} at {@code index}. Null bytes are recorded as length -1.
+	 */
+	private static void put(ByteArrayOutputStream strings, byte[] bytes, int[] entry, int index) {
+		if (bytes == null) {
+			entry[index] = 0;
+			entry[index + 1] = -1;
+			return;
+		}
+		entry[index] = strings.size();
+		entry[index + 1] = bytes.length;
+		strings.writeBytes(bytes);
+	}
+
+	private static byte[] read(File file) throws IOException {
+		return Files.readAllBytes(file.toPath());
+	}
+
+	/**
+	 * Packs a story directory into a bundle file.
+	 *
+	 * @param args {@code <storyDir> <bundleFile>}
+	 */
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.err.println("Usage: java entities.QuestionBundle <storyDir> <bundleFile>");
+			System.exit(2);
+		}
+		try {
+			int count = pack(Paths.get(args[0]), Paths.get(args[1]));
+			System.out.println("Packed " + count + " rooms into " + args[1]);
+		} catch (IOException | NumberFormatException e) {
+			System.err.println("Couldn't pack question bundle: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+}
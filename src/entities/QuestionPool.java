@@ -0,0 +1,226 @@
+package entities;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The {@code QuestionPool} class indexes a room's questions by difficulty and
+ * tag so that a game can draw a few questions from a pool of thousands
+ * without scanning it.
+ *
+ * <p>
+ * The index is built once per room: for every tag (plus "any tag") it keeps
+ * an array of question positions for each difficulty (plus "any difficulty").
+ * Draws are without replacement but keep no state in the pool: the caller
+ * passes the positions it already drew, and a draw probes random candidates
+ * until it finds a new one. Each draw is O(1) expected, and a session only
+ * stores the handful of positions it drew.
+ *
+ * <p>
+ * The pool only reads difficulties and tags, never the questions themselves,
+ * so a lazily decoded room decodes just the questions that are drawn.
+ *
+ * @version 1.0
+ */
+public final class QuestionPool {
+
+	/**
+	 * Filter value that matches every difficulty.
+	 */
+	public static final int ANY_DIFFICULTY = 0;
+
+	private static final int[] NONE = new int[0];
+
+	// Random probes before a draw falls back to scanning the candidates
+	private static final int MAX_PROBES = 8;
+
+	private final List<Question> questions;
+
+	// Tag ("" for any) -> positions per difficulty (0 for any)
+	private final Map<String, int[][]> index = new HashMap<>();
+
+	/**
+	 * Builds the index for a room's questions.
+	 *
+	 * @param questions    the questions, in room order
+	 * @param difficulties each question's difficulty
+	 * @param tags         each question's tags
+	 */
+	QuestionPool(List<Question> questions, int[] difficulties, List<Set<String>> tags) {
+		this.questions = questions;
+
+		Map<String, List<List<Integer>>> lists = new HashMap<>();
+		for (int i = 0; i < difficulties.length; i++) {
+			int difficulty = Math.max(1, Math.min(Question.MAX_DIFFICULTY, difficulties[i]));
+			add(lists, "", difficulty, i);
+			for (String tag : tags.get(i)) {
+				add(lists, tag, difficulty, i);
+			}
+		}
+		for (Map.Entry<String, List<List<Integer>>> entry : lists.entrySet()) {
+			int[][] byDifficulty = new int[Question.MAX_DIFFICULTY + 1][];
+			for (int d = 0; d < byDifficulty.length; d++) {
+				byDifficulty[d] = entry.getValue().get(d).stream().mapToInt(Integer::intValue).toArray();
+			}
+			index.put(entry.getKey(), byDifficulty);
+		}
+	}
+
+	/**
+	 * Builds the index from the questions' own difficulties and tags.
+	 *
+	 * @param questions the questions, in room order
+	 */
+	QuestionPool(List<Question> questions) {
+		this(questions, questions.stream().mapToInt(Question::getDifficulty).toArray(),
+				questions.stream().map(Question::getTags).toList());
+	}
+
+	private static void add(Map<String, List<List<Integer>>> lists, String tag, int difficulty, int position) {
+		List<List<Integer>> byDifficulty = lists.computeIfAbsent(tag, t -> {
+			List<List<Integer>> empty = new ArrayList<>();
+			for (int d = 0; d <= Question.MAX_DIFFICULTY; d++) {
+				empty.add(new ArrayList<>());
+			}
+			return empty;
+		});
+		byDifficulty.get(ANY_DIFFICULTY).add(position);
+		byDifficulty.get(difficulty).add(position);
+	}
+
+	/**
+	 * Gets the number of questions in the pool.
+	 *
+	 * @return the pool size
+	 */
+	public int size() {
+		return questions.size();
+	}
+
+	/**
+	 * Counts the questions matching a filter.
+	 *
+	 * @param difficulty the difficulty, or {@link #ANY_DIFFICULTY}
+	 * @param tag        the tag, or null for any
+	 * @return the number of matching questions
+	 */
+	public int count(int difficulty, String tag) {
+		return candidates(difficulty, tag).length;
+	}
+
+	/**
+	 * Draws a question matching the filter that is not among the positions
+	 * already drawn. If none matches, draws from the whole pool instead.
+	 *
+	 * @param difficulty the difficulty, or {@link #ANY_DIFFICULTY}
+	 * @param tag        the tag, or null for any
+	 * @param drawn      positions already drawn; -1 entries are ignored
+	 * @param random     the source of randomness
+	 * @return the drawn question's position, or -1 if all have been drawn
+	 */
+	public int draw(int difficulty, String tag, int[] drawn, Random random) {
+		int position = pick(candidates(difficulty, tag), drawn, -1, random);
+		if (position < 0 && (difficulty != ANY_DIFFICULTY || tag != null)) {
+			position = pick(candidates(ANY_DIFFICULTY, null), drawn, -1, random);
+		}
+		return position;
+	}
+
+	/**
+	 * Draws two questions matching the filter and returns the one whose live
+	 * success rate is closer to the target. If none matches, the difficulty
+	 * is dropped first, keeping the tag, and then the draw falls back like
+	 * {@link #draw(int, String, int[], Random)}.
+	 *
+	 * @param difficulty  the difficulty, or {@link #ANY_DIFFICULTY}
+	 * @param tag         the tag, or null for any
+	 * @param successRate the success rate to aim for
+	 * @param drawn       positions already drawn; -1 entries are ignored
+	 * @param random      the source of randomness
+	 * @return the drawn question's position, or -1 if all have been drawn
+	 */
+	public int draw(int difficulty, String tag, double successRate, int[] drawn, Random random) {
+		int[] candidates = candidates(difficulty, tag);
+		int first = pick(candidates, drawn, -1, random);
+		if (first < 0) {
+			return draw(ANY_DIFFICULTY, tag, drawn, random);
+		}
+		int second = pick(candidates, drawn, first, random);
+		if (second < 0) {
+			return first;
+		}
+		double a = questions.get(first).getStats().getSuccessRate();
+		double b = questions.get(second).getStats().getSuccessRate();
+		return Math.abs(a - successRate) <= Math.abs(b - successRate) ? first : second;
+	}
+
+	/**
+	 * Takes the first question in room order that matches the filter and is
+	 * not among the positions already drawn. Falls back like
+	 * {@link #draw(int, String, int[], Random)}. Used where the same answers
+	 * must always meet the same questions, such as replaying answer scripts.
+	 *
+	 * @param difficulty the difficulty, or {@link #ANY_DIFFICULTY}
+	 * @param tag        the tag, or null for any
+	 * @param drawn      positions already drawn; -1 entries are ignored
+	 * @return the question's position, or -1 if all have been drawn
+	 */
+	public int first(int difficulty, String tag, int[] drawn) {
+		int position = firstFree(candidates(difficulty, tag), drawn);
+		if (position < 0 && (difficulty != ANY_DIFFICULTY || tag != null)) {
+			position = firstFree(candidates(ANY_DIFFICULTY, null), drawn);
+		}
+		return position;
+	}
+
+	private int[] candidates(int difficulty, String tag) {
+		int[][] byDifficulty = index.get(tag == null ? "" : tag.toLowerCase());
+		if (byDifficulty == null || difficulty < 0 || difficulty > Question.MAX_DIFFICULTY) {
+			return NONE;
+		}
+		return byDifficulty[difficulty];
+	}
+
+	/**
+	 * Picks a random candidate that is not drawn or excluded. Random probes
+	 * find one in O(1) expected time while most candidates are free; a pool
+	 * that is nearly used up is scanned instead.
+	 */
+	private static int pick(int[] candidates, int[] drawn, int excluded, Random random) {
+		int n = candidates.length;
+		if (n == 0) return -1;
+		for (int tries = 0; tries < MAX_PROBES; tries++) {
+			int position = candidates[random.nextInt(n)];
+			if (position != excluded && !contains(drawn, position)) {
+				return position;
+			}
+		}
+		int start = random.nextInt(n);
+		for (int i = 0; i < n; i++) {
+			int position = candidates[(start + i) % n];
+			if (position != excluded && !contains(drawn, position)) {
+				return position;
+			}
+		}
+		return -1;
+	}
+
+	private static int firstFree(int[] candidates, int[] drawn) {
+		for (int position : candidates) {
+			if (!contains(drawn, position)) return position;
+		}
+		return -1;
+	}
+
+	// A visit draws only a handful of questions, so a scan beats a hash set
+	private static boolean contains(int[] drawn, int position) {
+		for (int value : drawn) {
+			if (value == position) return true;
+		}
+		return false;
+	}
+}
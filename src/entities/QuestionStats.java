@@ -0,0 +1,83 @@
+package entities;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code QuestionStats} class aggregates the answers given to one
+ * {@link Question} across every session in the process. The counters are
+ * striped ({@link LongAdder}), so thousands of sessions can record answers to
+ * the same question without contending on a single memory location.
+ *
+ * <p>
+ * Rates are smoothed toward a prior, so a question with few answers is
+ * treated as average instead of swinging on its first result.
+ *
+ * @version 1.0
+ */
+public final class QuestionStats {
+
+	/**
+	 * Success rate assumed for a question before it has any answers.
+	 */
+	public static final double PRIOR_SUCCESS_RATE = 0.6;
+
+	// How many answers the prior counts as
+	private static final double PRIOR_ANSWERS = 20;
+
+	private final LongAdder answers = new LongAdder();
+
+	private final LongAdder correct = new LongAdder();
+
+	private final LongAdder nanos = new LongAdder();
+
+	/**
+	 * Records one answer.
+	 *
+	 * @param correct      whether the answer was correct
+	 * @param elapsedNanos how long the player took to answer
+	 */
+	public void record(boolean correct, long elapsedNanos) {
+		answers.increment();
+		if (correct) {
+			this.correct.increment();
+		}
+		nanos.add(Math.max(0, elapsedNanos));
+	}
+
+	/**
+	 * Gets the number of answers recorded.
+	 *
+	 * @return the answer count
+	 */
+	public long getAnswerCount() {
+		return answers.sum();
+	}
+
+	/**
+	 * Gets the number of correct answers recorded.
+	 *
+	 * @return the correct answer count
+	 */
+	public long getCorrectCount() {
+		return correct.sum();
+	}
+
+	/**
+	 * Gets the smoothed share of answers that were correct.
+	 *
+	 * @return the success rate, between 0 and 1
+	 */
+	public double getSuccessRate() {
+		return (correct.sum() + PRIOR_ANSWERS * PRIOR_SUCCESS_RATE) / (answers.sum() + PRIOR_ANSWERS);
+	}
+
+	/**
+	 * Gets the mean time taken to answer.
+	 *
+	 * @return the mean answer time in nanoseconds, or 0 with no answers
+	 */
+	public long getAverageNanos() {
+		long count = answers.sum();
+		return count == 0 ? 0 : nanos.sum() / count;
+	}
+}
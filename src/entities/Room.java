@@ -3,7 +3,11 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Class: Room
@@ -28,6 +32,8 @@ public class Room {
 
 	final private int roomThreshold;
 
+	final private QuestionPool pool;
+
 	/**
 	 * Constructs a new Room with the specified path and room number.
 	 * The room's description and questions are loaded from the specified path.
@@ -38,11 +44,84 @@ public class Room {
 	 */	
     public Room(String roomPath, int roomNumber, int threshold) {
         //this.timer = new Timer(0, 0, 0);
-        this.questions = new ArrayList<>();
         this.description = loadDescription(roomPath);
 		this.roomNumber = roomNumber;
 		this.roomThreshold = threshold;
-        loadQuestions(roomPath);
+		// Rooms are shared between games, so the question list is read-only
+        this.questions = Collections.unmodifiableList(loadQuestions(roomPath));
+		this.pool = new QuestionPool(this.questions);
+	}
+
+	/**
+	 * Constructs a Room from content that is already loaded, such as a
+	 * compiled question bundle.
+	 * 
+	 * @param roomNumber the room/level number
+	 * @param threshold the threshold for the room
+	 * @param description the room's description
+	 * @param questions the room's questions; must not be modified afterwards
+	 * @param difficulties each question's difficulty
+	 * @param tags each question's tags
+	 */
+	Room(int roomNumber, int threshold, String description, List<Question> questions,
+			int[] difficulties, List<Set<String>> tags) {
+		this.description = description;
+		this.roomNumber = roomNumber;
+		this.roomThreshold = threshold;
+		this.questions = Collections.unmodifiableList(questions);
+		// Indexed from the metadata so lazily loaded questions stay unloaded
+		this.pool = new QuestionPool(this.questions, difficulties, tags);
+	}
+
+	/**
+	 * Constructs a Room from loaded questions, indexing them by their own
+	 * metadata.
+	 */
+	private Room(int roomNumber, int threshold, String description, List<Question> questions) {
+		this.description = description;
+		this.roomNumber = roomNumber;
+		this.roomThreshold = threshold;
+		this.questions = Collections.unmodifiableList(questions);
+		this.pool = new QuestionPool(this.questions);
+	}
+
+	/**
+	 * Builds a copy of this room with its changed files re-read from disk.
+	 * Only a changed description or question directory is parsed again;
+	 * every other question is shared with this room, along with its live
+	 * statistics. If questions were added or removed, the whole room is
+	 * loaded again.
+	 * 
+	 * @param roomPath the path to the room's directory
+	 * @param changed the names of the changed entries in the room directory,
+	 *                such as {@code problem_description.txt} or {@code problem2}
+	 * @return the updated room
+	 */
+	Room reload(String roomPath, Collection<String> changed) {
+		File[] folders = new File(roomPath).listFiles(File::isDirectory);
+		if (folders == null || folders.length != questions.size()) {
+			return new Room(roomPath, roomNumber, roomThreshold);
+		}
+		Arrays.sort(folders);
+
+		List<Question> updated = new ArrayList<>(questions);
+		int found = 0;
+		for (int i = 0; i < folders.length; i++) {
+			if (!changed.contains(folders[i].getName())) continue;
+			Question q = loadQuestion(folders[i]);
+			if (q == null) {
+				return new Room(roomPath, roomNumber, roomThreshold);
+			}
+			updated.set(i, q);
+			found++;
+		}
+		boolean descriptionChanged = changed.contains("problem_description.txt");
+		if (found + (descriptionChanged ? 1 : 0) < changed.size()) {
+			// A question directory was renamed or replaced
+			return new Room(roomPath, roomNumber, roomThreshold);
+		}
+		String text = descriptionChanged ? loadDescription(roomPath) : description;
+		return new Room(roomNumber, roomThreshold, text, updated);
 	}
 
 	/**
@@ -67,8 +146,11 @@ public class Room {
 	 * The questions are loaded from subdirectories within the specified path.
 	 * 
 	 * @param path the path to the room's directory
+	 * @return the loaded questions
 	 */
-	private void loadQuestions(String path) {
+	private List<Question> loadQuestions(String path) {
+		List<Question> questions = new ArrayList<>();
+
 		// Create a File object for the root directory of the room
 		File rootDir = new File(path);
 		
@@ -76,29 +158,67 @@ public class Room {
 		File[] folders = rootDir.listFiles(File::isDirectory);
 		
 		// If there are no subdirectories, return early
-		if (folders == null) return;
+		if (folders == null) return questions;
+
+		// Keep question order stable (problem1, problem2, ...) between loads
+		Arrays.sort(folders);
 		
 		// Iterate through each subdirectory
 		for (File folder : folders) {
-			Question q = null; // Initialize a Question object
-			
-			// Determine the type of question to create based on the room number
-			switch (roomNumber) {
-				case 1 -> q = new TrueFalseQuestion(folder.getPath()); // Room 1: True/False questions
-				case 2 -> q = new MultipleChoiceQuestion(folder.getPath()); // Room 2: Multiple-choice questions
-				case 3 -> q = new CodeQuestion(folder.getPath()); // Room 3: Coding questions
-				default -> {
-					// Handle unknown room numbers
-					System.err.println("Unknown room number: " + roomNumber);
-					System.exit(1); // Exit the program with an error
-				}
-			}
+			Question q = loadQuestion(folder);
 
 			// If a question was successfully created, add it to the list of questions
-			if (q != null) questions.add(q);
+			if (q != null) {
+				questions.add(q);
+			}
 		}
+		return questions;
+	}
+
+	/**
+	 * Loads one question and its metadata from its directory.
+	 * 
+	 * @param folder the question's directory
+	 * @return the loaded question
+	 */
+	private Question loadQuestion(File folder) {
+		Question q = null; // Initialize a Question object
+
+		// Determine the type of question to create based on the room number
+		switch (roomNumber) {
+			case 1 -> q = new TrueFalseQuestion(folder.getPath()); // Room 1: True/False questions
+			case 2 -> q = new MultipleChoiceQuestion(folder.getPath()); // Room 2: Multiple-choice questions
+			case 3 -> q = new CodeQuestion(folder.getPath()); // Room 3: Coding questions
+			default -> {
+				// Handle unknown room numbers
+				System.err.println("Unknown room number: " + roomNumber);
+				System.exit(1); // Exit the program with an error
+			}
+		}
+
+		if (q != null) {
+			loadMetadata(q, new File(folder, "meta.txt"));
+		}
+		return q;
 	}
     
+	/**
+	 * Reads a question's difficulty and tags from its meta.txt file, if it
+	 * has one.
+	 * 
+	 * @param question the question to update
+	 * @param meta the question's meta.txt file
+	 */
+	private void loadMetadata(Question question, File meta) {
+		if (!meta.isFile()) return;
+		try {
+			String text = Files.readString(meta.toPath());
+			question.setMetadata(Question.parseDifficulty(text), Question.parseTags(text));
+		} catch (IOException | NumberFormatException e) {
+			System.err.println("Couldn't read question metadata: " + e.getMessage());
+		}
+	}
+
 	/**
 	 * Gets the room number.
 	 * 
@@ -116,6 +236,25 @@ public class Room {
 		return questions;
 	}
 
+	/**
+	 * Gets the index used to draw questions from this room by difficulty
+	 * and tag.
+	 * 
+	 * @return the room's question pool
+	 */
+	public QuestionPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Gets the room/level number.
+	 * 
+	 * @return the room number
+	 */
+	public int getRoomNumber() {
+		return roomNumber;
+	}
+
 	/**
 	 * Gets the room threshold.
 	 * 
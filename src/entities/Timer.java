@@ -3,7 +3,13 @@ package entities;
 /**
  * The {@code Timer} class provides functionality to measure elapsed time 
  * and manage its running state. It allows starting, stopping, resetting, 
- * and setting the timer, as well as retrieving the elapsed time in seconds.
+ * and setting the timer, as well as retrieving the elapsed time in seconds
+ * or at nanosecond resolution.
+ * 
+ * <p>
+ * Time is measured with the monotonic {@link System#nanoTime()} clock, so
+ * wall-clock adjustments do not affect measurements. A timer holds only
+ * primitive fields and none of its methods allocate.
  * 
  * <h2>Features:</h2>
  * <ul>
@@ -19,6 +25,8 @@ package entities;
  */
 public class Timer {
 
+	public static final long NANOS_PER_SECOND = 1_000_000_000L;
+
 	private long startTime;
 	private long elapsedTime;
 	private boolean running;
@@ -41,7 +49,7 @@ public class Timer {
 	 */
 	public void startTime() {
 		if (!running) {
-			this.startTime = System.currentTimeMillis() - elapsedTime;
+			this.startTime = System.nanoTime() - elapsedTime;
 			this.running = true;
 		}
 	}
@@ -53,7 +61,7 @@ public class Timer {
 	 */
 	public void stopTime() {
 		if (running) {
-			this.elapsedTime = System.currentTimeMillis() - startTime;
+			this.elapsedTime = System.nanoTime() - startTime;
 			this.running = false;
 		}
 	}
@@ -69,21 +77,39 @@ public class Timer {
 	}
 
 	/**
-	 * Calculates and returns the elapsed time in seconds.
+	 * Returns the elapsed time in nanoseconds.
 	 * If the timer is currently running, the elapsed time is calculated
 	 * as the difference between the current system time and the start time.
 	 * If the timer is not running, the previously recorded elapsed time is returned.
 	 *
-	 * @return the elapsed time in seconds
+	 * @return the elapsed time in nanoseconds
 	 */
-	public long getElapsedTime() {
+	public long getElapsedNanos() {
 		if (running) {
-			return (System.currentTimeMillis() - startTime) / 1000;
+			return System.nanoTime() - startTime;
 		} else {
-			return elapsedTime / 1000;
+			return elapsedTime;
 		}
 	}
 
+	/**
+	 * Returns the elapsed time in microseconds.
+	 *
+	 * @return the elapsed time in microseconds
+	 */
+	public long getElapsedMicros() {
+		return getElapsedNanos() / 1_000;
+	}
+
+	/**
+	 * Calculates and returns the elapsed time in whole seconds.
+	 *
+	 * @return the elapsed time in seconds
+	 */
+	public long getElapsedTime() {
+		return getElapsedNanos() / NANOS_PER_SECOND;
+	}
+
 	/**
 	 * Sets the elapsed time for the timer in seconds. If the timer is currently
 	 * running, it adjusts the start time accordingly to reflect the new elapsed time.
@@ -91,9 +117,19 @@ public class Timer {
 	 * @param seconds the elapsed time to set, in seconds
 	 */
 	public void setTime(int seconds) {
-		this.elapsedTime = seconds * 1000L;
+		setElapsedNanos(seconds * NANOS_PER_SECOND);
+	}
+
+	/**
+	 * Sets the elapsed time for the timer in nanoseconds. If the timer is
+	 * currently running, it adjusts the start time accordingly.
+	 *
+	 * @param nanos the elapsed time to set, in nanoseconds
+	 */
+	public void setElapsedNanos(long nanos) {
+		this.elapsedTime = nanos;
 		if (running) {
-			this.startTime = System.currentTimeMillis() - elapsedTime;
+			this.startTime = System.nanoTime() - elapsedTime;
 		}
 	}
 }
@@ -2,6 +2,8 @@ package main;
 
 import engine.ASCII;
 import engine.Engine;
+import engine.SessionStore;
+import engine.TerminalRenderer;
 import entities.Player;
 
 import java.util.Scanner;
@@ -44,7 +46,13 @@ public class Algotraz {
                     // This is where we initialize the following:
                     // Within initializeGame: Game Entities: Player, All Rooms, 
                     Player prisoner = new Player("1", "Pris(O)ner");
-                    Engine gameEngine = new Engine(prisoner);
+
+                    // Resume the last unfinished game if session snapshots are on
+                    SessionStore store = SessionStore.global();
+                    SessionStore.Snapshot saved = store == null ? null : store.claimLocal(prisoner.getName());
+                    Engine gameEngine = saved != null
+                            ? Engine.resume(saved, new TerminalRenderer(System.out))
+                            : new Engine(prisoner);
 
                     gameEngine.startGame(scanner);
 
@@ -0,0 +1,48 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code Counter} class is a lock-free count that many threads update
+ * at once. Updates are striped ({@link LongAdder}), so they do not contend;
+ * reading sums the stripes. A counter that is also decremented, such as the
+ * number of connected players, works as a gauge.
+ *
+ * @version 1.0
+ */
+public final class Counter {
+
+	private final LongAdder value = new LongAdder();
+
+	/**
+	 * Adds one.
+	 */
+	public void increment() {
+		value.increment();
+	}
+
+	/**
+	 * Subtracts one.
+	 */
+	public void decrement() {
+		value.decrement();
+	}
+
+	/**
+	 * Adds an amount.
+	 *
+	 * @param amount the amount to add
+	 */
+	public void add(long amount) {
+		value.add(amount);
+	}
+
+	/**
+	 * Gets the current count.
+	 *
+	 * @return the count
+	 */
+	public long get() {
+		return value.sum();
+	}
+}
@@ -0,0 +1,317 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The {@code GameEvents} class defines the game's Java Flight Recorder
+ * events, so a recording shows sessions, rooms, answers and code grading
+ * next to GC pauses and CPU samples. They appear under the "Algotraz"
+ * category, named {@code algotraz.*}.
+ *
+ * <p>
+ * Events are only filled in and written when JFR is recording them. With
+ * recording off, emitting one costs a check of a flag: the event object does
+ * not escape, so the JIT removes it.
+ *
+ * <p>
+ * Example: {@code java -XX:StartFlightRecording=filename=game.jfr ...}, then
+ * {@code jfr print --events algotraz.QuestionAnswered game.jfr}.
+ *
+ * @version 1.0
+ */
+public final class GameEvents {
+
+	private GameEvents() {
+	}
+
+	/**
+	 * Emits a session start event.
+	 *
+	 * @param playerId       the player's id
+	 * @param playerName     the player's name
+	 * @param contentVersion the content version the game plays
+	 */
+	public static void sessionStarted(String playerId, String playerName, int contentVersion) {
+		SessionStart event = new SessionStart();
+		if (event.shouldCommit()) {
+			event.playerId = playerId;
+			event.playerName = playerName;
+			event.contentVersion = contentVersion;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Emits a session end event.
+	 *
+	 * @param playerId  the player's id
+	 * @param room      the room the game ended in
+	 * @param score     the total score
+	 * @param completed whether the final room was finished
+	 * @param won       whether the game was won
+	 * @param nanos     how long the game lasted
+	 */
+	public static void sessionEnded(String playerId, int room, int score, boolean completed, boolean won,
+			long nanos) {
+		SessionEnd event = new SessionEnd();
+		if (event.shouldCommit()) {
+			event.playerId = playerId;
+			event.room = room;
+			event.score = score;
+			event.completed = completed;
+			event.won = won;
+			event.gameDuration = nanos;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Emits a room entry event.
+	 *
+	 * @param playerId  the player's id
+	 * @param room      the room entered
+	 * @param questions the number of questions drawn for the visit
+	 */
+	public static void roomEntered(String playerId, int room, int questions) {
+		RoomEntry event = new RoomEntry();
+		if (event.shouldCommit()) {
+			event.playerId = playerId;
+			event.room = room;
+			event.questions = questions;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Emits a room retry event.
+	 *
+	 * @param playerId  the player's id
+	 * @param room      the room started over
+	 * @param points    the points scored in the failed visit
+	 * @param threshold the points the room needed
+	 * @param timedOut  whether the room's time limit ran out
+	 * @param nanos     how long the failed visit lasted
+	 */
+	public static void roomRetried(String playerId, int room, int points, int threshold, boolean timedOut,
+			long nanos) {
+		RoomRetry event = new RoomRetry();
+		if (event.shouldCommit()) {
+			event.playerId = playerId;
+			event.room = room;
+			event.points = points;
+			event.threshold = threshold;
+			event.timedOut = timedOut;
+			event.visitDuration = nanos;
+			event.commit();
+		}
+	}
+
+	/**
+	 * A game started or resumed.
+	 */
+	@Name("algotraz.SessionStart")
+	@Label("Session Start")
+	@Category("Algotraz")
+	@StackTrace(false)
+	static final class SessionStart extends Event {
+		@Label("Player Id")
+		String playerId;
+
+		@Label("Player Name")
+		String playerName;
+
+		@Label("Content Version")
+		int contentVersion;
+	}
+
+	/**
+	 * A game finished, or was suspended when its player disconnected.
+	 */
+	@Name("algotraz.SessionEnd")
+	@Label("Session End")
+	@Category("Algotraz")
+	@StackTrace(false)
+	static final class SessionEnd extends Event {
+		@Label("Player Id")
+		String playerId;
+
+		@Label("Room")
+		int room;
+
+		@Label("Score")
+		int score;
+
+		@Label("Completed")
+		boolean completed;
+
+		@Label("Won")
+		boolean won;
+
+		@Label("Game Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long gameDuration;
+	}
+
+	/**
+	 * A player entered a room.
+	 */
+	@Name("algotraz.RoomEntry")
+	@Label("Room Entry")
+	@Category("Algotraz")
+	@StackTrace(false)
+	static final class RoomEntry extends Event {
+		@Label("Player Id")
+		String playerId;
+
+		@Label("Room")
+		int room;
+
+		@Label("Questions")
+		int questions;
+	}
+
+	/**
+	 * A room was started over.
+	 */
+	@Name("algotraz.RoomRetry")
+	@Label("Room Retry")
+	@Description("A room started over for missing its threshold or running out of time")
+	@Category("Algotraz")
+	@StackTrace(false)
+	static final class RoomRetry extends Event {
+		@Label("Player Id")
+		String playerId;
+
+		@Label("Room")
+		int room;
+
+		@Label("Points")
+		int points;
+
+		@Label("Threshold")
+		int threshold;
+
+		@Label("Timed Out")
+		boolean timedOut;
+
+		@Label("Visit Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long visitDuration;
+	}
+
+	/**
+	 * An answer was graded and the game moved on. The event's duration is
+	 * the server's work: grading plus the state update.
+	 */
+	@Name("algotraz.QuestionAnswered")
+	@Label("Question Answered")
+	@Category("Algotraz")
+	@StackTrace(false)
+	public static final class QuestionAnswered extends Event {
+		@Label("Player Id")
+		String playerId;
+
+		@Label("Room")
+		int room;
+
+		@Label("Question")
+		@Description("Position of the question in the room visit")
+		int question;
+
+		@Label("Question Type")
+		String questionType;
+
+		@Label("Difficulty")
+		int difficulty;
+
+		@Label("Correct")
+		boolean correct;
+
+		@Label("Timed Out")
+		boolean timedOut;
+
+		@Label("Answer Time")
+		@Description("How long the player took to answer")
+		@Timespan(Timespan.NANOSECONDS)
+		long answerTime;
+
+		/**
+		 * Ends the event and commits it with the answer's details, if it is
+		 * being recorded. Call {@link #begin()} before grading.
+		 *
+		 * @param playerId     the player's id
+		 * @param room         the room
+		 * @param question     the question's position in the room visit
+		 * @param questionType the question's type
+		 * @param difficulty   the question's difficulty
+		 * @param correct      whether the answer was correct
+		 * @param timedOut     whether the question's time limit ran out
+		 * @param answerNanos  how long the player took
+		 */
+		public void finish(String playerId, int room, int question, String questionType, int difficulty,
+				boolean correct, boolean timedOut, long answerNanos) {
+			end();
+			if (shouldCommit()) {
+				this.playerId = playerId;
+				this.room = room;
+				this.question = question;
+				this.questionType = questionType;
+				this.difficulty = difficulty;
+				this.correct = correct;
+				this.timedOut = timedOut;
+				this.answerTime = answerNanos;
+				commit();
+			}
+		}
+	}
+
+	/**
+	 * A code submission was graded.
+	 */
+	@Name("algotraz.CodeGraded")
+	@Label("Code Graded")
+	@Category("Algotraz")
+	@StackTrace(false)
+	public static final class CodeGraded extends Event {
+		@Label("Submission Length")
+		@DataAmount(DataAmount.BYTES)
+		int submissionLength;
+
+		@Label("Test Inputs")
+		int inputs;
+
+		@Label("Passed")
+		boolean passed;
+
+		@Label("Cached")
+		@Description("Whether the verdict came from the grader's cache")
+		boolean cached;
+
+		/**
+		 * Ends the event and commits it, if it is being recorded. Call
+		 * {@link #begin()} before grading.
+		 *
+		 * @param submissionLength the submission's length in characters
+		 * @param inputs           the number of test inputs
+		 * @param passed           whether the submission passed
+		 * @param cached           whether the verdict was cached
+		 */
+		public void finish(int submissionLength, int inputs, boolean passed, boolean cached) {
+			end();
+			if (shouldCommit()) {
+				this.submissionLength = submissionLength;
+				this.inputs = inputs;
+				this.passed = passed;
+				this.cached = cached;
+				commit();
+			}
+		}
+	}
+}
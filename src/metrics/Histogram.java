@@ -0,0 +1,146 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code Histogram} class records latencies in log-linear buckets, in
+ * the style of an HDR histogram: values below 16 are exact, and every power
+ * of two above is split into 16 buckets, so any quantile is reported within
+ * about 6% of the true value across the whole range of a {@code long}.
+ *
+ * <p>
+ * Recording is lock-free and allocation-free: one atomic increment in a
+ * bucket array picked by the recording thread, plus a striped sum and a max.
+ * Threads are spread over a few copies of the bucket array so cores do not
+ * fight over the busiest bucket. Quantiles merge the copies when read.
+ *
+ * @version 1.0
+ */
+public final class Histogram {
+
+	private static final int SUB_BITS = 4;
+
+	private static final int SUB = 1 << SUB_BITS;
+
+	private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB;
+
+	// Copies of the bucket array, a power of two up to 8
+	private static final int STRIPES = Math.min(8,
+			Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+	private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+
+	private final LongAdder sum = new LongAdder();
+
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Creates an empty histogram.
+	 */
+	public Histogram() {
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new AtomicLongArray(BUCKETS);
+		}
+	}
+
+	/**
+	 * Records one value. Negative values are recorded as 0.
+	 *
+	 * @param value the value, usually nanoseconds
+	 */
+	public void record(long value) {
+		long v = Math.max(0, value);
+		int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+		stripes[stripe].getAndIncrement(index(v));
+		sum.add(v);
+		max.accumulate(v);
+	}
+
+	/**
+	 * Records the time since {@code startNanos}, a {@link System#nanoTime()}
+	 * reading.
+	 *
+	 * @param startNanos when the timed work started
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	private static int index(long value) {
+		if (value < SUB) return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS));
+		return (exponent - SUB_BITS + 1) * SUB + sub - SUB;
+	}
+
+	// Highest value that falls into a bucket
+	private static long upperBound(int index) {
+		if (index < SUB) return index;
+		int exponent = index / SUB + SUB_BITS - 1;
+		long sub = index % SUB + SUB;
+		return ((sub + 1) << (exponent - SUB_BITS)) - 1;
+	}
+
+	/**
+	 * Gets the number of values recorded.
+	 *
+	 * @return the count
+	 */
+	public long count() {
+		long total = 0;
+		for (AtomicLongArray stripe : stripes) {
+			for (int i = 0; i < BUCKETS; i++) {
+				total += stripe.get(i);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Gets the mean of the values recorded.
+	 *
+	 * @return the mean, or 0 if there are none
+	 */
+	public double mean() {
+		long n = count();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	/**
+	 * Gets the largest value recorded.
+	 *
+	 * @return the exact maximum, or 0 if there are none
+	 */
+	public long max() {
+		return max.get();
+	}
+
+	/**
+	 * Gets the value at a quantile.
+	 *
+	 * @param quantile between 0 and 1
+	 * @return the upper bound of the bucket holding the quantile, or 0 if
+	 *         there are no values
+	 */
+	public long quantile(double quantile) {
+		long[] merged = new long[BUCKETS];
+		long total = 0;
+		for (AtomicLongArray stripe : stripes) {
+			for (int i = 0; i < BUCKETS; i++) {
+				long n = stripe.get(i);
+				merged[i] += n;
+				total += n;
+			}
+		}
+		if (total == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += merged[i];
+			if (seen >= rank) return Math.min(upperBound(i), max());
+		}
+		return max();
+	}
+}
@@ -0,0 +1,130 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The {@code Metrics} class is a registry of named {@link Counter}s and
+ * latency {@link Histogram}s. Code that wants to be measured looks its
+ * metrics up once, keeps them in fields, and updates them on the hot path
+ * without locks or allocation.
+ *
+ * <p>
+ * The global registry is published two ways:
+ * <ul>
+ * <li>as JMX attributes of {@code algotraz:type=Metrics}, for jconsole or any
+ * other JMX client;</li>
+ * <li>as plain text from a local HTTP endpoint, when the
+ * {@code algotraz.metricsPort} system property is set (see
+ * {@link MetricsEndpoint}).</li>
+ * </ul>
+ * Each counter is one value. Each histogram, in nanoseconds, becomes
+ * {@code .count}, {@code .mean_us}, {@code .p50_us}, {@code .p90_us},
+ * {@code .p99_us}, {@code .p999_us} and {@code .max_us} values.
+ *
+ * @version 1.0
+ */
+public final class Metrics {
+
+	private static final Metrics GLOBAL = new Metrics();
+
+	static {
+		GLOBAL.registerMBean();
+		Integer port = Integer.getInteger("algotraz.metricsPort");
+		if (port != null) {
+			MetricsEndpoint.start(GLOBAL, port);
+		}
+	}
+
+	private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+	private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+	/**
+	 * Gets the process-wide registry.
+	 *
+	 * @return the global registry
+	 */
+	public static Metrics global() {
+		return GLOBAL;
+	}
+
+	/**
+	 * Gets the counter with the given name, creating it on first use.
+	 *
+	 * @param name the counter's name, such as {@code answers.correct}
+	 * @return the counter
+	 */
+	public Counter counter(String name) {
+		return counters.computeIfAbsent(name, n -> new Counter());
+	}
+
+	/**
+	 * Gets the histogram with the given name, creating it on first use.
+	 *
+	 * @param name the histogram's name, such as {@code question.check}
+	 * @return the histogram
+	 */
+	public Histogram histogram(String name) {
+		return histograms.computeIfAbsent(name, n -> new Histogram());
+	}
+
+	/**
+	 * Reads every metric as a flat map of values, counters first, each group
+	 * sorted by name. Histograms are reported in microseconds.
+	 *
+	 * @return the current values by name
+	 */
+	public Map<String, Number> values() {
+		Map<String, Number> values = new LinkedHashMap<>();
+		for (String name : new TreeSet<>(counters.keySet())) {
+			values.put(name, counters.get(name).get());
+		}
+		for (String name : new TreeSet<>(histograms.keySet())) {
+			Histogram histogram = histograms.get(name);
+			values.put(name + ".count", histogram.count());
+			values.put(name + ".mean_us", histogram.mean() / 1e3);
+			values.put(name + ".p50_us", histogram.quantile(0.50) / 1e3);
+			values.put(name + ".p90_us", histogram.quantile(0.90) / 1e3);
+			values.put(name + ".p99_us", histogram.quantile(0.99) / 1e3);
+			values.put(name + ".p999_us", histogram.quantile(0.999) / 1e3);
+			values.put(name + ".max_us", histogram.max() / 1e3);
+		}
+		return values;
+	}
+
+	/**
+	 * Formats every metric as {@code name value} lines.
+	 *
+	 * @return the metrics as text
+	 */
+	public String toText() {
+		StringBuilder text = new StringBuilder();
+		values().forEach((name, value) -> {
+			text.append(name).append(' ');
+			if (value instanceof Double d) {
+				text.append(String.format(Locale.ROOT, "%.1f", d));
+			} else {
+				text.append(value);
+			}
+			text.append('\n');
+		});
+		return text.toString();
+	}
+
+	private void registerMBean() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(this),
+					new ObjectName("algotraz:type=Metrics"));
+		} catch (JMException e) {
+			System.err.println("Couldn't register metrics with JMX: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package metrics;
+
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+
+/**
+ * The {@code MetricsBean} class exposes a {@link Metrics} registry over JMX.
+ * Every value of {@link Metrics#values()} is a read-only attribute; the
+ * attribute list grows as metrics are created.
+ *
+ * @version 1.0
+ */
+final class MetricsBean implements DynamicMBean {
+
+	private final Metrics metrics;
+
+	MetricsBean(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Number value = metrics.values().get(attribute);
+		if (value == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+		return value;
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		Map<String, Number> values = metrics.values();
+		AttributeList list = new AttributeList();
+		for (String name : attributes) {
+			Number value = values.get(name);
+			if (value != null) {
+				list.add(new Attribute(name, value));
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		Map<String, Number> values = metrics.values();
+		MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[values.size()];
+		int i = 0;
+		for (Map.Entry<String, Number> entry : values.entrySet()) {
+			attributes[i++] = new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+					entry.getKey(), true, false, false);
+		}
+		return new MBeanInfo(Metrics.class.getName(), "Algotraz game metrics", attributes, null,
+				new MBeanOperationInfo[0], null);
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) {
+		throw new UnsupportedOperationException(actionName);
+	}
+}
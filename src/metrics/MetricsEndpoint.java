@@ -0,0 +1,110 @@
+package metrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The {@code MetricsEndpoint} class serves a {@link Metrics} registry as
+ * plain text over HTTP on the loopback interface, one {@code name value}
+ * line per metric:
+ * <pre>
+ * curl http://localhost:9100/metrics
+ * </pre>
+ * Only local clients can connect. Requests are answered one at a time on a
+ * single daemon thread, which is plenty for a person or a scraper polling
+ * every few seconds.
+ *
+ * @version 1.0
+ */
+public final class MetricsEndpoint {
+
+	private final Metrics metrics;
+
+	private final ServerSocket server;
+
+	private MetricsEndpoint(Metrics metrics, ServerSocket server) {
+		this.metrics = metrics;
+		this.server = server;
+	}
+
+	/**
+	 * Starts serving a registry on a loopback port.
+	 *
+	 * @param metrics the registry to serve
+	 * @param port    the port, or 0 for any free port
+	 * @return the endpoint, or null if the port could not be opened
+	 */
+	public static MetricsEndpoint start(Metrics metrics, int port) {
+		try {
+			ServerSocket server = new ServerSocket(port, 16, InetAddress.getLoopbackAddress());
+			MetricsEndpoint endpoint = new MetricsEndpoint(metrics, server);
+			Thread thread = new Thread(endpoint::serve, "metrics-endpoint");
+			thread.setDaemon(true);
+			thread.start();
+			System.err.println("Metrics available at http://localhost:" + server.getLocalPort() + "/metrics");
+			return endpoint;
+		} catch (IOException e) {
+			System.err.println("Couldn't start metrics endpoint: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the port the endpoint listens on.
+	 *
+	 * @return the port
+	 */
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Stops serving.
+	 *
+	 * @throws IOException if the socket cannot be closed
+	 */
+	public void close() throws IOException {
+		server.close();
+	}
+
+	private void serve() {
+		while (!server.isClosed()) {
+			try (Socket socket = server.accept()) {
+				socket.setSoTimeout(2000);
+				answer(socket);
+			} catch (IOException e) {
+				if (server.isClosed()) return;
+			}
+		}
+	}
+
+	private void answer(Socket socket) throws IOException {
+		BufferedReader in = new BufferedReader(
+				new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+		String request = in.readLine();
+		if (request == null) return;
+		// Skip the headers
+		String line = in.readLine();
+		while (line != null && !line.isEmpty()) {
+			line = in.readLine();
+		}
+
+		String[] parts = request.split(" ");
+		boolean found = parts.length >= 2 && parts[0].equals("GET")
+				&& (parts[1].equals("/") || parts[1].equals("/metrics"));
+		byte[] body = (found ? metrics.toText() : "Not found\n").getBytes(StandardCharsets.UTF_8);
+		String head = (found ? "HTTP/1.0 200 OK" : "HTTP/1.0 404 Not Found")
+				+ "\r\nContent-Type: text/plain; charset=utf-8\r\nContent-Length: " + body.length
+				+ "\r\nConnection: close\r\n\r\n";
+		OutputStream out = socket.getOutputStream();
+		out.write(head.getBytes(StandardCharsets.US_ASCII));
+		out.write(body);
+		out.flush();
+	}
+}
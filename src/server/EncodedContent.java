@@ -0,0 +1,83 @@
+package server;
+
+import engine.GameContent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code EncodedContent} class caches the UTF-8 encoded form of shared
+ * game content (room descriptions, questions, ASCII art). Each piece of
+ * content is encoded once into a direct buffer; every client then writes a
+ * read-only view of the same bytes.
+ *
+ * <p>
+ * The cache is emptied whenever a reload publishes a new content version,
+ * so edited descriptions and questions don't leave their old buffers
+ * behind. Games still playing the old version encode its content again on
+ * first use.
+ *
+ * @version 1.0
+ */
+public final class EncodedContent {
+
+	// Content is finite, but keep a bound in case callers pass dynamic text
+	private static final int MAX_ENTRIES = 4096;
+
+	private static final Map<String, ByteBuffer> CACHE = new ConcurrentHashMap<>();
+
+	static {
+		GameContent.onPublish(EncodedContent::clear);
+	}
+
+	private EncodedContent() {
+	}
+
+	/**
+	 * Gets a buffer holding the encoded content, positioned at its start. The
+	 * returned buffer is an independent read-only view, so callers may consume
+	 * it freely.
+	 *
+	 * @param content the content to encode
+	 * @return a read-only buffer over the encoded bytes
+	 */
+	public static ByteBuffer get(String content) {
+		ByteBuffer encoded = CACHE.get(content);
+		if (encoded == null) {
+			encoded = encode(content);
+			if (CACHE.size() < MAX_ENTRIES) {
+				ByteBuffer raced = CACHE.putIfAbsent(content, encoded);
+				if (raced != null) {
+					encoded = raced;
+				}
+			}
+		}
+		return encoded.duplicate();
+	}
+
+	/**
+	 * Encodes text into a new heap buffer without caching it.
+	 *
+	 * @param text the text to encode
+	 * @return a buffer over the encoded bytes
+	 */
+	public static ByteBuffer encodeOnce(String text) {
+		return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Drops every cached encoding, for example after content was reloaded.
+	 */
+	public static void clear() {
+		CACHE.clear();
+	}
+
+	private static ByteBuffer encode(String content) {
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes).flip();
+		return direct.asReadOnlyBuffer();
+	}
+}
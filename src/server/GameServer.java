@@ -0,0 +1,233 @@
+package server;
+
+import engine.ASCII;
+import engine.Engine;
+import engine.SessionStore;
+import engine.TerminalRenderer;
+import entities.Player;
+import metrics.Counter;
+import metrics.Metrics;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code GameServer} class runs Algotraz for many players at once over
+ * plain TCP sockets. Every connection gets its own {@link Engine} session
+ * with per-session input and output streams, running on its own thread.
+ *
+ * <p>
+ * Sessions run on virtual threads when the JVM supports them (Java 21+).
+ * On older JVMs each session gets a platform thread with a small stack.
+ *
+ * <p>
+ * Usage: {@code java -cp build/ server.GameServer [port]}, then connect with
+ * {@code nc localhost 4000} or {@code telnet localhost 4000}.
+ *
+ * @version 1.0
+ */
+public class GameServer {
+
+	public static final int DEFAULT_PORT = 4000;
+
+	// Keep per-session buffers small so thousands of idle sessions stay cheap
+	private static final int SESSION_BUFFER_SIZE = 2048;
+
+	private static final Counter CONNECTED = Metrics.global().counter("sessions.connected");
+
+	// Stack size for platform session threads when virtual threads are missing
+	private static final long SESSION_STACK_SIZE = 256 * 1024;
+
+	private final int port;
+
+	private final ExecutorService sessions;
+
+	private volatile ServerSocket serverSocket;
+
+	/**
+	 * Creates a server that will listen on the given port.
+	 *
+	 * @param port the TCP port to accept players on
+	 */
+	public GameServer(int port) {
+		this.port = port;
+		this.sessions = newSessionExecutor();
+	}
+
+	/**
+	 * Accepts connections until the server is closed, starting one game
+	 * session per connection.
+	 *
+	 * @throws IOException if the server socket cannot be opened
+	 */
+	public void serve() throws IOException {
+		try (ServerSocket server = new ServerSocket(port)) {
+			this.serverSocket = server;
+			System.out.println("Algotraz server listening on port " + server.getLocalPort());
+			while (!server.isClosed()) {
+				Socket socket;
+				try {
+					socket = server.accept();
+				} catch (IOException e) {
+					if (server.isClosed()) break;
+					System.err.println("Accept failed: " + e.getMessage());
+					continue;
+				}
+				sessions.execute(() -> runSession(socket));
+			}
+		} finally {
+			sessions.shutdown();
+		}
+	}
+
+	/**
+	 * Stops accepting new players. Running sessions finish on their own.
+	 *
+	 * @throws IOException if the server socket cannot be closed
+	 */
+	public void close() throws IOException {
+		ServerSocket server = this.serverSocket;
+		if (server != null) {
+			server.close();
+		}
+	}
+
+	/**
+	 * Runs one player's session: intro art, name prompt, then games until the
+	 * player declines to play again or disconnects.
+	 *
+	 * @param socket the player's connection
+	 */
+	private void runSession(Socket socket) {
+		Engine gameEngine = null;
+		CONNECTED.increment();
+		try (socket) {
+			PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream(),
+					SESSION_BUFFER_SIZE), false, StandardCharsets.UTF_8);
+			Scanner scanner = new Scanner(new FlushingInputStream(socket.getInputStream(), out),
+					StandardCharsets.UTF_8);
+
+			out.println(new ASCII("src/data/ascii/welcome.txt"));
+			out.print("Enter your name: ");
+			String name = scanner.nextLine().trim();
+			if (name.isEmpty()) {
+				name = "Pris(O)ner";
+			}
+			Player prisoner = new Player(UUID.randomUUID().toString(), name);
+
+			// Pick up an unfinished game saved before a restart or disconnect
+			SessionStore store = SessionStore.global();
+			SessionStore.Snapshot saved = null;
+			if (store != null && store.hasSaved(name)) {
+				out.print("Enter your resume code (anything else starts a new game): ");
+				String code = scanner.nextLine().trim();
+				saved = code.isEmpty() ? null : store.claim(name, code);
+			}
+
+			boolean playAgain = true;
+			while (playAgain) {
+				if (saved != null) {
+					gameEngine = Engine.resume(saved, new TerminalRenderer(out));
+					prisoner = gameEngine.getPlayer();
+					saved = null;
+					out.println("Welcome back, " + name + "! Resuming your game.");
+				} else {
+					gameEngine = new Engine(prisoner, out);
+				}
+				gameEngine.startGame(scanner);
+
+				out.println("Would you like to play again? (y/n)");
+				String answer = scanner.nextLine().trim().toLowerCase();
+				playAgain = answer.equals("y") || answer.equals("yes");
+			}
+			out.println("Thank you for playing Algotraz! Goodbye!");
+			out.flush();
+		} catch (NoSuchElementException | IOException e) {
+			// Player disconnected; keep an unfinished game so they can resume it
+			if (gameEngine != null) {
+				gameEngine.suspend();
+			}
+		} catch (RuntimeException e) {
+			// Save the game before the connection is closed, as on a disconnect
+			System.err.println("Session failed: " + e);
+			if (gameEngine != null) {
+				gameEngine.suspend();
+			}
+		} finally {
+			CONNECTED.decrement();
+		}
+	}
+
+	/**
+	 * Creates the executor that runs one task per session. Uses a virtual
+	 * thread per task when the running JVM provides one, looked up
+	 * reflectively so the project still builds on older JDKs.
+	 *
+	 * @return an executor starting a new thread for each session
+	 */
+	static ExecutorService newSessionExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			AtomicLong count = new AtomicLong();
+			ThreadFactory threads = task -> {
+				Thread thread = new Thread(null, task, "session-" + count.incrementAndGet(),
+						SESSION_STACK_SIZE);
+				thread.setDaemon(true);
+				return thread;
+			};
+			return Executors.newCachedThreadPool(threads);
+		}
+	}
+
+	/**
+	 * An input stream that flushes the session's output before blocking on a
+	 * read, so prompts written with {@code print} reach the player.
+	 */
+	private static final class FlushingInputStream extends FilterInputStream {
+		private final PrintStream out;
+
+		FlushingInputStream(InputStream in, PrintStream out) {
+			super(in);
+			this.out = out;
+		}
+
+		@Override
+		public int read() throws IOException {
+			out.flush();
+			return super.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			out.flush();
+			return super.read(b, off, len);
+		}
+	}
+
+	/**
+	 * Starts the server.
+	 *
+	 * @param args optional port number (defaults to 4000)
+	 * @throws IOException if the server socket cannot be opened
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		new GameServer(port).serve();
+	}
+}
@@ -0,0 +1,661 @@
+package server;
+
+import engine.ASCII;
+import engine.Engine;
+import engine.GameContent;
+import engine.SessionStore;
+import engine.GameOutput;
+import engine.Tournament;
+import entities.Player;
+import metrics.Counter;
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code NioGameServer} class is a non-blocking alternative to
+ * {@link GameServer}. A single selector thread accepts players and moves
+ * bytes; game logic runs on a small worker pool, one input line at a time,
+ * through {@link Engine#submitAnswer(String)}.
+ *
+ * <p>
+ * Shared content (room descriptions, questions, ASCII art) is written from
+ * pre-encoded buffers held by {@link EncodedContent}, and each flush is sent
+ * with a single gathering write, so a screen costs no charset encoding beyond
+ * the few dynamic status lines.
+ *
+ * <p>
+ * With the {@code algotraz.tournamentPlayers} system property set, players
+ * join a {@link Tournament} instead of playing alone. It starts once that
+ * many players have joined, and answers are timed from when this server
+ * read them. {@code algotraz.tournamentRoundTime} sets the seconds allowed
+ * per question (default 30).
+ *
+ * <p>
+ * Entering {@code watch <name>} instead of a name spectates that player's
+ * game, and {@code watch tournament} the current tournament, through a
+ * {@link SpectatorChannel}. A player's frames go to their viewers as the
+ * same buffers the player is sent.
+ *
+ * <p>
+ * Usage: {@code java -cp build/ server.NioGameServer [port]}.
+ *
+ * @version 1.0
+ */
+public class NioGameServer {
+
+	private static final String WELCOME_ART = "src/data/ascii/welcome.txt";
+
+	private static final String CLEAR_SCREEN = "\033[H\033[2J";
+
+	// Longest input line accepted from a client
+	private static final int MAX_LINE = 4096;
+
+	// Most buffers handed to one gathering write
+	private static final int MAX_GATHER = 64;
+
+	private final int port;
+
+	private final ExecutorService workers;
+
+	private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+	private volatile Selector selector;
+
+	private volatile boolean running = true;
+
+	// Players a tournament waits for; 0 plays single-player games
+	private final int tournamentPlayers;
+
+	private final long tournamentRoundSeconds;
+
+	// Tournament accepting players; replaced once it starts
+	private Tournament lobby;
+
+	private volatile SpectatorChannel tournamentChannel;
+
+	// Channels of players' games, by lower-case player name
+	private final Map<String, SpectatorChannel> channels = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a server that will listen on the given port.
+	 *
+	 * @param port the TCP port to accept players on
+	 */
+	public NioGameServer(int port) {
+		this.port = port;
+		this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+			Thread thread = new Thread(task, "nio-game-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.tournamentPlayers = Integer.getInteger("algotraz.tournamentPlayers", 0);
+		this.tournamentRoundSeconds = Long.getLong("algotraz.tournamentRoundTime", 30);
+		// Load the art once up front; greetings then read it from the cache
+		new ASCII(WELCOME_ART);
+	}
+
+	/**
+	 * Gets the tournament new players join, creating one when none is
+	 * waiting for players.
+	 *
+	 * @return the open tournament
+	 */
+	private synchronized Tournament openTournament() {
+		if (lobby == null || lobby.isStarted()) {
+			lobby = new Tournament(GameContent.standard(), Integer.getInteger("algotraz.questionsPerRoom", 3),
+					tournamentRoundSeconds, TimeUnit.SECONDS);
+			SpectatorChannel spectators = new SpectatorChannel("tournament");
+			lobby.observe(spectators, () -> spectators.end("The tournament is over.\n"));
+			tournamentChannel = spectators;
+		}
+		return lobby;
+	}
+
+	/**
+	 * Runs the selector loop until {@link #close()} is called.
+	 *
+	 * @throws IOException if the server channel cannot be opened
+	 */
+	public void serve() throws IOException {
+		try (Selector sel = Selector.open(); ServerSocketChannel server = ServerSocketChannel.open()) {
+			this.selector = sel;
+			server.bind(new InetSocketAddress(port));
+			server.configureBlocking(false);
+			server.register(sel, SelectionKey.OP_ACCEPT);
+			System.out.println("Algotraz NIO server listening on port " + server.socket().getLocalPort());
+
+			while (running) {
+				sel.select();
+				drainPendingWrites();
+
+				Iterator<SelectionKey> keys = sel.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) continue;
+					try {
+						if (key.isAcceptable()) {
+							accept(server, sel);
+						} else {
+							Connection connection = (Connection) key.attachment();
+							if (key.isReadable()) connection.read();
+							if (key.isValid() && key.isWritable()) connection.write();
+						}
+					} catch (IOException e) {
+						closeKey(key);
+						if (key.attachment() instanceof Connection connection) {
+							connection.schedule(DISCONNECTED);
+						}
+					}
+				}
+			}
+		} finally {
+			workers.shutdown();
+		}
+	}
+
+	/**
+	 * Stops the selector loop and closes the server channel.
+	 */
+	public void close() {
+		running = false;
+		Selector sel = this.selector;
+		if (sel != null) {
+			sel.wakeup();
+		}
+	}
+
+	private void accept(ServerSocketChannel server, Selector sel) throws IOException {
+		SocketChannel channel = server.accept();
+		if (channel == null) return;
+		channel.configureBlocking(false);
+		SelectionKey key = channel.register(sel, SelectionKey.OP_READ);
+		Connection connection = new Connection(channel, key);
+		key.attach(connection);
+		CONNECTED.increment();
+		connection.schedule(null);
+	}
+
+	/**
+	 * Writes output queued by worker threads since the last selector wakeup.
+	 */
+	private void drainPendingWrites() {
+		Connection connection;
+		while ((connection = pendingWrites.poll()) != null) {
+			try {
+				connection.write();
+			} catch (IOException e) {
+				closeKey(connection.key);
+			}
+		}
+	}
+
+	// Queued in place of an input line when the player's connection drops;
+	// compared by identity
+	private static final String DISCONNECTED = new String("");
+
+	private static final Counter CONNECTED = Metrics.global().counter("sessions.connected");
+
+	private static void closeKey(SelectionKey key) {
+		key.cancel();
+		try {
+			if (key.channel().isOpen()) {
+				CONNECTED.decrement();
+			}
+			key.channel().close();
+		} catch (IOException e) {
+			// Already closed
+		}
+	}
+
+	/**
+	 * The states a connection moves through.
+	 */
+	private enum State {
+		NAME, RESUME_CODE, PLAYING, TOURNAMENT, PLAY_AGAIN, SPECTATING, CLOSING
+	}
+
+	/**
+	 * An input line and when the selector read it.
+	 */
+	private record Input(String text, long receivedNanos) {
+	}
+
+	/**
+	 * One connected player. Input lines are handled on the worker pool one at
+	 * a time per connection; output is queued as buffers and written by the
+	 * selector thread.
+	 */
+	private final class Connection implements GameOutput, SpectatorChannel.Viewer {
+		private final SocketChannel channel;
+		private final SelectionKey key;
+		private final ByteBuffer readBuffer = ByteBuffer.allocate(1024);
+		private byte[] line = new byte[128];
+		private int lineLength;
+
+		private final Queue<Input> inbox = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private final Queue<ByteBuffer> outbox = new ConcurrentLinkedQueue<>();
+		private final ArrayDeque<ByteBuffer> writing = new ArrayDeque<>();
+		private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+		private final StringBuilder text = new StringBuilder();
+		private final ArrayDeque<ByteBuffer> frame = new ArrayDeque<>();
+		private boolean frameClears;
+		// Bytes queued but not yet written
+		private final AtomicLong queued = new AtomicLong();
+
+		private volatile State state = State.NAME;
+		private Player player;
+		private Engine engine;
+		private Tournament tournament;
+		private Tournament.Participant participant;
+		// Viewers of this player's game, and the game this connection watches
+		private SpectatorChannel spectators;
+		private SpectatorChannel watching;
+
+		Connection(SocketChannel channel, SelectionKey key) {
+			this.channel = channel;
+			this.key = key;
+		}
+
+		// ---- selector thread ----
+
+		void read() throws IOException {
+			readBuffer.clear();
+			int n = channel.read(readBuffer);
+			long now = System.nanoTime();
+			if (n < 0) {
+				closeKey(key);
+				schedule(DISCONNECTED);
+				return;
+			}
+			readBuffer.flip();
+			while (readBuffer.hasRemaining()) {
+				byte b = readBuffer.get();
+				if (b == '\n') {
+					String input = new String(line, 0, lineLength, StandardCharsets.UTF_8);
+					lineLength = 0;
+					schedule(input.trim(), now);
+				} else if (lineLength < MAX_LINE) {
+					if (lineLength == line.length) {
+						line = Arrays.copyOf(line, Math.min(line.length * 2, MAX_LINE));
+					}
+					line[lineLength++] = b;
+				}
+			}
+		}
+
+		void write() throws IOException {
+			ByteBuffer next;
+			while ((next = outbox.poll()) != null) {
+				writing.add(next);
+			}
+			while (!writing.isEmpty()) {
+				int count = 0;
+				for (ByteBuffer buffer : writing) {
+					if (count == MAX_GATHER) break;
+					gather[count++] = buffer;
+				}
+				long written = channel.write(gather, 0, count);
+				queued.addAndGet(-written);
+				Arrays.fill(gather, 0, count, null);
+				while (!writing.isEmpty() && !writing.peekFirst().hasRemaining()) {
+					writing.pollFirst();
+				}
+				if (written == 0) {
+					break; // Socket buffer is full
+				}
+			}
+			if (!key.isValid()) return;
+			if (writing.isEmpty()) {
+				key.interestOps(SelectionKey.OP_READ);
+				if (state == State.CLOSING) {
+					closeKey(key);
+				}
+			} else {
+				key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			}
+		}
+
+		// ---- worker threads ----
+
+		/**
+		 * Queues an input line (or {@code null} for the initial greeting) and
+		 * makes sure exactly one worker processes this connection's inbox.
+		 */
+		void schedule(String input) {
+			schedule(input, System.nanoTime());
+		}
+
+		/**
+		 * Queues an input line received at the given time.
+		 */
+		void schedule(String input, long receivedNanos) {
+			if (input != null) {
+				inbox.add(new Input(input, receivedNanos));
+			}
+			if (scheduled.compareAndSet(false, true)) {
+				workers.execute(() -> drainInbox(input == null));
+			}
+		}
+
+		private void drainInbox(boolean greet) {
+			try {
+				if (greet) {
+					greet();
+				}
+				Input input;
+				while ((input = inbox.poll()) != null) {
+					handle(input.text(), input.receivedNanos());
+				}
+			} catch (RuntimeException e) {
+				System.err.println("Session failed: " + e);
+				try {
+					leave();
+				} catch (RuntimeException again) {
+					System.err.println("Session cleanup failed: " + again);
+				}
+				flushAndClose();
+			} finally {
+				scheduled.set(false);
+			}
+			// A line may have arrived after the last poll but before the reset
+			if (!inbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+				workers.execute(() -> drainInbox(false));
+			}
+		}
+
+		private void greet() {
+			// Read from the cache each time so a hot-reloaded file is picked up
+			printContent(new ASCII(WELCOME_ART).toString());
+			printContent("\nEnter your name (or \"watch <name>\" to spectate): ");
+			flush();
+		}
+
+		private void handle(String input, long receivedNanos) {
+			if (input == DISCONNECTED) {
+				leave();
+				state = State.CLOSING;
+				return;
+			}
+			switch (state) {
+				case NAME -> {
+					if (input.toLowerCase(Locale.ROOT).startsWith("watch ")) {
+						watch(input.substring("watch ".length()).trim());
+						return;
+					}
+					String name = input.isEmpty() ? "Pris(O)ner" : input;
+					spectators = new SpectatorChannel(name);
+					channels.put(name.toLowerCase(Locale.ROOT), spectators);
+					player = new Player(UUID.randomUUID().toString(), name);
+					SessionStore store = SessionStore.global();
+					if (store != null && tournamentPlayers == 0 && store.hasSaved(name)) {
+						printContent("Enter your resume code (anything else starts a new game): ");
+						state = State.RESUME_CODE;
+						flush();
+					} else {
+						startGame();
+					}
+				}
+				case RESUME_CODE -> {
+					SessionStore.Snapshot saved = input.isEmpty() ? null
+							: SessionStore.global().claim(player.getName(), input);
+					if (saved != null) {
+						resumeGame(saved);
+					} else {
+						startGame();
+					}
+				}
+				case PLAYING -> {
+					engine.submitAnswer(input);
+					if (engine.isGameComplete()) {
+						println("Would you like to play again? (y/n)");
+						state = State.PLAY_AGAIN;
+						flush();
+					} else {
+						engine.promptQuestion();
+					}
+				}
+				case TOURNAMENT -> tournament.submit(participant, input, receivedNanos);
+				case PLAY_AGAIN -> {
+					String answer = input.toLowerCase();
+					if (answer.equals("y") || answer.equals("yes")) {
+						startGame();
+					} else {
+						println("Thank you for playing Algotraz! Goodbye!");
+						endSpectators();
+						flushAndClose();
+					}
+				}
+				case SPECTATING -> {
+					watching.unsubscribe(this);
+					println("\nStopped watching. Goodbye!");
+					flushAndClose();
+				}
+				case CLOSING -> {
+					// Ignore input after goodbye
+				}
+			}
+		}
+
+		private void startGame() {
+			if (tournamentPlayers > 0) {
+				joinTournament();
+				return;
+			}
+			engine = new Engine(player, this);
+			state = State.PLAYING;
+			engine.enterRoom();
+			engine.promptQuestion();
+		}
+
+		private void resumeGame(SessionStore.Snapshot saved) {
+			engine = Engine.resume(saved, this);
+			player = engine.getPlayer();
+			state = State.PLAYING;
+			engine.enterRoom();
+			println("Welcome back, " + player.getName() + "! Resuming your game.\n");
+			engine.promptQuestion();
+		}
+
+		private void watch(String target) {
+			SpectatorChannel source = target.equalsIgnoreCase("tournament") ? tournamentChannel
+					: channels.get(target.toLowerCase(Locale.ROOT));
+			if (source == null) {
+				println("Nobody called " + target + " is playing.");
+				printContent("Enter your name (or \"watch <name>\" to spectate): ");
+				flush();
+				return;
+			}
+			println("Watching " + source.getName() + ". Press Enter to stop.");
+			flush();
+			watching = source;
+			state = State.SPECTATING;
+			if (!source.subscribe(this)) {
+				println("That game is over. Goodbye!");
+				flushAndClose();
+			}
+		}
+
+		/**
+		 * Tells this player's viewers the game is over.
+		 */
+		/**
+		 * Cleans up after a player who is gone, whether the connection
+		 * dropped or handling their input failed.
+		 */
+		private void leave() {
+			// Keep an unfinished game so the player can resume it
+			if (state == State.PLAYING) {
+				engine.suspend();
+			} else if (state == State.TOURNAMENT) {
+				tournament.leave(participant);
+			} else if (state == State.SPECTATING) {
+				watching.unsubscribe(this);
+			}
+			endSpectators();
+		}
+
+		private void endSpectators() {
+			if (spectators != null) {
+				channels.remove(spectators.getName().toLowerCase(Locale.ROOT), spectators);
+				spectators.end("\n" + spectators.getName() + " left the game.\n");
+			}
+		}
+
+		private void joinTournament() {
+			state = State.TOURNAMENT;
+			tournament = openTournament();
+			participant = tournament.join(player.getId(), player.getName(), this, this::tournamentFinished);
+			if (tournament.size() >= tournamentPlayers) {
+				tournament.start();
+			}
+		}
+
+		/**
+		 * Offers another game once the tournament sent its final standings.
+		 * Runs on the tournament's thread, which holds the participant.
+		 */
+		private void tournamentFinished() {
+			state = State.PLAY_AGAIN;
+			println("Would you like to play again? (y/n)");
+			flush();
+		}
+
+		// ---- GameOutput, called by the worker running this connection, or
+		// by a tournament holding its participant ----
+
+		@Override
+		public void print(String value) {
+			text.append(value);
+		}
+
+		@Override
+		public void printContent(String content) {
+			endText();
+			frame.add(EncodedContent.get(content));
+		}
+
+		@Override
+		public void clear() {
+			// Output not yet sent would be erased at once; drop it
+			text.setLength(0);
+			frame.clear();
+			frameClears = true;
+			printContent(CLEAR_SCREEN);
+		}
+
+		@Override
+		public void flush() {
+			endText();
+			if (frame.isEmpty()) return;
+			if (spectators != null) {
+				// Published before the selector starts consuming the buffers
+				spectators.publish(frame.toArray(new ByteBuffer[0]), frameClears);
+			}
+			frameClears = false;
+			ByteBuffer buffer;
+			while ((buffer = frame.poll()) != null) {
+				enqueue(buffer);
+			}
+			signalWrite();
+		}
+
+		/**
+		 * Flushes the remaining output and closes the connection once it has
+		 * been written. The state changes only after the output is queued, so
+		 * the selector cannot close the channel before the goodbye is sent.
+		 */
+		private void flushAndClose() {
+			endText();
+			ByteBuffer buffer;
+			while ((buffer = frame.poll()) != null) {
+				enqueue(buffer);
+			}
+			state = State.CLOSING;
+			signalWrite();
+		}
+
+		private void enqueue(ByteBuffer buffer) {
+			queued.addAndGet(buffer.remaining());
+			outbox.add(buffer);
+		}
+
+		// ---- SpectatorChannel.Viewer, called by the channel's publisher ----
+
+		@Override
+		public long backlog() {
+			return queued.get();
+		}
+
+		@Override
+		public void send(ByteBuffer[] parts) {
+			for (ByteBuffer part : parts) {
+				enqueue(part);
+			}
+			signalWrite();
+		}
+
+		@Override
+		public void close(boolean immediately) {
+			state = State.CLOSING;
+			if (immediately) {
+				closeKey(key);
+			} else {
+				// Runs on the publisher's thread, so the frame being built by
+				// this connection's worker is left alone; everything the
+				// channel sent is already queued and goes out before the close
+				signalWrite();
+			}
+		}
+
+		private void signalWrite() {
+			pendingWrites.add(this);
+			Selector sel = selector;
+			if (sel != null) {
+				sel.wakeup();
+			}
+		}
+
+		private void endText() {
+			if (text.length() > 0) {
+				frame.add(EncodedContent.encodeOnce(text.toString()));
+				text.setLength(0);
+			}
+		}
+	}
+
+	/**
+	 * Starts the server.
+	 *
+	 * @param args optional port number (defaults to 4000)
+	 * @throws IOException if the server channel cannot be opened
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : GameServer.DEFAULT_PORT;
+		new NioGameServer(port).serve();
+	}
+}
@@ -0,0 +1,308 @@
+package server;
+
+import engine.GameOutput;
+import metrics.Counter;
+import metrics.Metrics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code SpectatorChannel} class sends one game's frames to any number
+ * of viewers. A frame is everything its source flushed at once, already
+ * encoded. Each frame is published once, and every viewer's queue gets
+ * views of the same buffers. The bytes are never copied or encoded again
+ * per viewer.
+ *
+ * <p>
+ * Publishing never waits for a viewer, so a slow viewer cannot stall the
+ * game that feeds the channel:
+ * <ul>
+ * <li>A viewer more than {@value #HIGH_WATER} bytes behind stops getting
+ * frames.</li>
+ * <li>Once it has caught up to {@value #LOW_WATER} bytes, it gets the current
+ * screen redrawn and then live frames again. A slow viewer thus sees fewer,
+ * later screens rather than every step.</li>
+ * <li>A viewer still behind after {@value #DROP_SECONDS} seconds is
+ * disconnected.</li>
+ * </ul>
+ *
+ * <p>
+ * A channel is fed in one of two ways. A player's connection passes the
+ * buffers it already encoded to {@link #publish(ByteBuffer[], boolean)}.
+ * Sources that render text, such as a tournament, write to the channel as
+ * a {@link GameOutput}.
+ *
+ * @version 1.0
+ */
+public final class SpectatorChannel implements GameOutput {
+
+	/**
+	 * Bytes a viewer may have queued before frames are skipped.
+	 */
+	public static final long HIGH_WATER = 256 * 1024;
+
+	/**
+	 * Bytes a skipping viewer must be down to before it is sent frames again.
+	 */
+	public static final long LOW_WATER = 32 * 1024;
+
+	/**
+	 * Seconds a viewer may stay behind before it is disconnected.
+	 */
+	public static final long DROP_SECONDS = 30;
+
+	private static final String CLEAR_SCREEN = "\033[H\033[2J";
+
+	// Frames kept to redraw the current screen; longer screens wait for the next
+	private static final int MAX_SCREEN_FRAMES = 256;
+
+	private static final Counter FRAMES = Metrics.global().counter("spectators.frames");
+
+	private static final Counter SKIPPED = Metrics.global().counter("spectators.frames.skipped");
+
+	private static final Counter DROPPED = Metrics.global().counter("spectators.dropped");
+
+	/**
+	 * Where a channel sends frames, such as a spectator's connection.
+	 */
+	public interface Viewer {
+
+		/**
+		 * Gets the number of bytes queued for the viewer but not yet sent.
+		 *
+		 * @return the backlog in bytes
+		 */
+		long backlog();
+
+		/**
+		 * Queues buffers to send. Must not block.
+		 *
+		 * @param parts views the viewer may consume
+		 */
+		void send(ByteBuffer[] parts);
+
+		/**
+		 * Disconnects the viewer.
+		 *
+		 * @param immediately true to drop anything still queued, false to send
+		 *                    it first
+		 */
+		void close(boolean immediately);
+	}
+
+	/**
+	 * One published frame: read-only buffers shared by every viewer.
+	 */
+	private record Frame(ByteBuffer[] parts) {
+	}
+
+	/**
+	 * A viewer and how far behind it is.
+	 */
+	private static final class Subscription {
+		private final Viewer viewer;
+		private boolean behind;
+		private long behindSince;
+
+		private Subscription(Viewer viewer) {
+			this.viewer = viewer;
+		}
+	}
+
+	private final String name;
+
+	private final List<Subscription> subscriptions = new ArrayList<>();
+
+	// Frames since the last clear; null once there were too many to keep
+	private List<Frame> screen = new ArrayList<>();
+
+	private boolean ended;
+
+	// GameOutput side: the frame being written
+	private final StringBuilder text = new StringBuilder();
+
+	private final List<ByteBuffer> parts = new ArrayList<>();
+
+	private boolean cleared;
+
+	/**
+	 * Creates a channel with no viewers.
+	 *
+	 * @param name what viewers are watching, such as a player's name
+	 */
+	public SpectatorChannel(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Gets what the channel shows.
+	 *
+	 * @return the channel's name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Adds a viewer and sends it the current screen.
+	 *
+	 * @param viewer the viewer
+	 * @return false if the channel has ended
+	 */
+	public synchronized boolean subscribe(Viewer viewer) {
+		if (ended) return false;
+		Subscription subscription = new Subscription(viewer);
+		subscriptions.add(subscription);
+		if (screen == null) {
+			// Wait for the next clear
+			subscription.behind = true;
+			subscription.behindSince = System.nanoTime();
+		} else {
+			redraw(subscription);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes a viewer. No frames are sent to it after this returns.
+	 *
+	 * @param viewer the viewer
+	 */
+	public synchronized void unsubscribe(Viewer viewer) {
+		subscriptions.removeIf(subscription -> subscription.viewer == viewer);
+	}
+
+	/**
+	 * Publishes a frame to every viewer. Frames are also kept until the next
+	 * clear, to draw the current screen for new viewers, so a source
+	 * publishes every frame whether or not anyone is watching.
+	 *
+	 * @param frameParts the encoded frame, in order; the channel takes its
+	 *                   own views, so the caller may consume the buffers
+	 * @param clears     whether the frame starts by clearing the screen
+	 */
+	public synchronized void publish(ByteBuffer[] frameParts, boolean clears) {
+		if (ended) return;
+		ByteBuffer[] shared = new ByteBuffer[frameParts.length];
+		for (int i = 0; i < frameParts.length; i++) {
+			shared[i] = frameParts[i].asReadOnlyBuffer();
+		}
+		Frame frame = new Frame(shared);
+		if (clears) {
+			screen = new ArrayList<>();
+		}
+		if (screen != null) {
+			screen.add(frame);
+			if (screen.size() > MAX_SCREEN_FRAMES) {
+				screen = null;
+			}
+		}
+		if (subscriptions.isEmpty()) return;
+		FRAMES.increment();
+
+		long now = System.nanoTime();
+		Iterator<Subscription> iterator = subscriptions.iterator();
+		while (iterator.hasNext()) {
+			Subscription subscription = iterator.next();
+			long backlog = subscription.viewer.backlog();
+			if (!subscription.behind) {
+				if (backlog <= HIGH_WATER) {
+					send(subscription.viewer, frame);
+					continue;
+				}
+				subscription.behind = true;
+				subscription.behindSince = now;
+			} else if (backlog <= LOW_WATER && screen != null) {
+				redraw(subscription);
+				continue;
+			}
+
+			SKIPPED.increment();
+			if (now - subscription.behindSince > TimeUnit.SECONDS.toNanos(DROP_SECONDS)) {
+				DROPPED.increment();
+				subscription.viewer.close(true);
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Sends a last message and disconnects every viewer, once the game being
+	 * watched is over.
+	 *
+	 * @param message the message to show
+	 */
+	public synchronized void end(String message) {
+		if (ended) return;
+		Frame frame = new Frame(new ByteBuffer[] { EncodedContent.encodeOnce(message).asReadOnlyBuffer() });
+		for (Subscription subscription : subscriptions) {
+			if (!subscription.behind) {
+				send(subscription.viewer, frame);
+			}
+			subscription.viewer.close(subscription.behind);
+		}
+		subscriptions.clear();
+		screen = null;
+		ended = true;
+	}
+
+	/**
+	 * Catches a viewer up with the whole current screen.
+	 */
+	private void redraw(Subscription subscription) {
+		subscription.behind = false;
+		send(subscription.viewer, new Frame(new ByteBuffer[] { EncodedContent.get(CLEAR_SCREEN) }));
+		for (Frame frame : screen) {
+			send(subscription.viewer, frame);
+		}
+	}
+
+	private static void send(Viewer viewer, Frame frame) {
+		ByteBuffer[] views = new ByteBuffer[frame.parts().length];
+		for (int i = 0; i < views.length; i++) {
+			views[i] = frame.parts()[i].duplicate();
+		}
+		viewer.send(views);
+	}
+
+	// ---- GameOutput, for sources that render text ----
+
+	@Override
+	public synchronized void print(String value) {
+		text.append(value);
+	}
+
+	@Override
+	public synchronized void printContent(String content) {
+		endText();
+		parts.add(EncodedContent.get(content));
+	}
+
+	@Override
+	public synchronized void clear() {
+		text.setLength(0);
+		parts.clear();
+		cleared = true;
+		parts.add(EncodedContent.get(CLEAR_SCREEN));
+	}
+
+	@Override
+	public synchronized void flush() {
+		endText();
+		if (parts.isEmpty()) return;
+		publish(parts.toArray(new ByteBuffer[0]), cleared);
+		parts.clear();
+		cleared = false;
+	}
+
+	private void endText() {
+		if (text.length() > 0) {
+			parts.add(EncodedContent.encodeOnce(text.toString()));
+			text.setLength(0);
+		}
+	}
+}
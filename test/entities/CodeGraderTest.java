@@ -0,0 +1,94 @@
+package entities;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Class: CodeGraderTest
+ * @version 1.0
+ * Written: 10/17/2026
+ *
+ * Purpose: Checks that the {@link CodeGrader} sandbox rejects submissions
+ * whose cost is not bounded by their length before they run, and still
+ * grades ordinary answers and the story's own reference answers. Run it
+ * from the project root with ./test_run.sh; it exits with status 1 if any
+ * check fails.
+ */
+public class CodeGraderTest {
+
+	private static final int[] INPUTS = { 0, 1, 5, 15, 127, 128, 170, 200, 255 };
+
+	// Each must be rejected by the sandbox, so it never runs
+	private static final List<String> REJECTED = List.of(
+			"String.format(\"%01500000000d\", n).length()",
+			"\"%01500000000d\".formatted(n).length()",
+			"String.valueOf(n).matches(\"(.*a){30}\")",
+			"String.valueOf(n).replaceAll(\"(.*a){30}\", \"\")",
+			"String.valueOf(n).replaceFirst(\"0\", \"\")",
+			"String.valueOf(n).split(\",\").length",
+			"\"a\".repeat(n)",
+			"String.join(\",\", \"a\", \"b\")",
+			"new StringBuilder(n * 1000000).length()",
+			"String.valueOf(n).indent(n)",
+			"new int[n].length",
+			"apply(n - 1)",
+			"this.apply(n)",
+			"System.exit(0)",
+			"Integer.getInteger(\"user.home\")",
+			"\"\\u0022+System.exit(0)+\\u0022\"",
+			"n; }",
+			"no such thing");
+
+	// Each must pass against the reference Integer.bitCount(n)
+	private static final List<String> PASSED = List.of(
+			"Integer.bitCount(n)",
+			"Long.bitCount(n)",
+			"Integer.toBinaryString(n).replace(\"0\", \"\").length()",
+			"new StringBuilder(Integer.toBinaryString(n)).reverse().toString().replace(\"0\", \"\").length()");
+
+	private static int failures;
+
+	public static void main(String[] args) throws IOException {
+		if (!CodeGrader.isAvailable()) {
+			System.out.println("No Java compiler in this JVM, skipping");
+			return;
+		}
+		CodeGrader grader = new CodeGrader("Integer.bitCount(n)", INPUTS);
+		for (String submission : REJECTED) {
+			expect(grader, submission, CodeGrader.Verdict.REJECTED);
+		}
+		for (String submission : PASSED) {
+			expect(grader, submission, CodeGrader.Verdict.PASSED);
+		}
+		expect(grader, "Integer.bitCount(n + 1)", CodeGrader.Verdict.FAILED);
+
+		// Every reference answer in the story must stay inside the sandbox
+		File[] problems = new File("src/data/story/room3").listFiles(File::isDirectory);
+		for (File problem : problems == null ? new File[0] : problems) {
+			File tests = new File(problem, "tests.txt");
+			if (!tests.exists()) continue;
+			String answer = Files.readString(new File(problem, "answer.txt").toPath()).trim();
+			int[] inputs = CodeGrader.parseInputs(Files.readString(tests.toPath()));
+			expect(new CodeGrader(answer, inputs), answer, CodeGrader.Verdict.PASSED);
+		}
+
+		System.out.println(failures == 0 ? "All checks passed" : failures + " check(s) failed");
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+
+	private static void expect(CodeGrader grader, String submission, CodeGrader.Verdict want) {
+		long start = System.nanoTime();
+		CodeGrader.Verdict got = grader.check(submission);
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		if (got == want) {
+			System.out.println("ok   " + want + " in " + millis + " ms: " + submission);
+		} else {
+			failures++;
+			System.out.println("FAIL " + got + ", expected " + want + ": " + submission);
+		}
+	}
+}
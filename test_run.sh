@@ -0,0 +1,44 @@
+#!/bin/bash
+
+# Builds the project and the checks in test/, then runs each check.
+# Every check is a class with a main method that exits non-zero on failure.
+
+BUILD_DIR="build/"
+TEST_BUILD_DIR="build/test/"
+SRC_DIR="src"
+TEST_DIR="test"
+
+PACKAGE_DIRS=(
+    "$SRC_DIR/engine/*.java"
+    "$SRC_DIR/main/*.java"
+    "$SRC_DIR/entities/*.java"
+    "$SRC_DIR/server/*.java"
+    "$SRC_DIR/metrics/*.java"
+)
+
+TESTS=(
+    "entities.CodeGraderTest"
+)
+
+mkdir -p "$BUILD_DIR" "$TEST_BUILD_DIR"
+
+echo "Building the project...."
+if ! javac ${PACKAGE_DIRS[@]} -d "$BUILD_DIR"; then
+    echo "Error: Failed to build project"
+    exit 1
+fi
+
+echo "Building the tests...."
+if ! javac -cp "$BUILD_DIR" $(find "$TEST_DIR" -name '*.java') -d "$TEST_BUILD_DIR"; then
+    echo "Error: Failed to build tests"
+    exit 1
+fi
+
+STATUS=0
+for TEST in "${TESTS[@]}"; do
+    echo "Running $TEST...."
+    if ! java -cp "$BUILD_DIR:$TEST_BUILD_DIR" "$TEST"; then
+        STATUS=1
+    fi
+done
+exit $STATUS